@@ -7,6 +7,7 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.lang.Math;
 
 import Group12.Group12AI;
+import Group12.UCBKernel;
 import game.Game;
 import main.collections.FVector;
 import main.collections.FastArrayList;
@@ -35,6 +36,7 @@ public class AMSPlayground extends Group12AI {
     private final boolean heuristicsFromMetadata = true;
 //    protected static final String selectionStrategy = "UCB1-Tuned"; // UCB1-Tuned, UCT
     protected static final String selectionStrategy = "UCT"; // UCB1-Tuned, UCT
+    private static final boolean ucb1Tuned = selectionStrategy.equals("UCB1-Tuned");
 
     protected double autoPlaySeconds = 0.0D;
     protected float estimatedRootScore = 0.0F;
@@ -47,6 +49,8 @@ public class AMSPlayground extends Group12AI {
     protected FVector rootValueEstimates = null;
     protected int numPlayersInGame = 0;
     protected int iterations = 0;
+    /** Depth limit of the running search, AMS() is at depth searchMaxDepth - depth */
+    private int searchMaxDepth = 0;
     //-------------------------------------------------------------------------
 
     /**
@@ -74,11 +78,16 @@ public class AMSPlayground extends Group12AI {
                     final int maxIterations,
                     final int maxDepth
             ) {
+        searchStatistics.startSearch(maxSeconds);
+        searchMaxDepth = maxDepth;
         // Start out by creating a new root node (no tree reuse in this example)
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
 
         // We'll respect any limitations on max seconds and max iterations (don't care about max depth)
-        final long stopTime = (maxSeconds > 0.0) ? System.currentTimeMillis() + (long) (maxSeconds * 1000L) : Long.MAX_VALUE;
+        // the time manager adds banked time to the time of the move if it has a game budget
+        timeManager.startSearch(maxSeconds, Integer.MAX_VALUE);
+        final long stopTime = timeManager.getDeadlineMillis();
         final int maxIts = (maxIterations >= 0) ? maxIterations : 10000000;
 
         Random rand = new Random();
@@ -121,21 +130,16 @@ public class AMSPlayground extends Group12AI {
         }
         double[] qValue = new double[legalMoves.size()];
         double[] qValueUCB = new double[legalMoves.size()];
-        copyContext = new Context(context);
         int legalMoveSize = iteration;
         while (iteration < (legalMoveSize + maxIts) &&
                 System.currentTimeMillis() < stopTime) {
-            for (int i = 0; i < legalMoves.size(); ++i) {
-                copyGame.apply(copyContext, legalMoves.get(i));
-//                float reward = this.heuristicValueFunction.computeValue(copyContext, this.player, 0.01F) - heuristicScore;
-                qValue[i] = 0 + discountFactor / actionCount[i] * vHatValuesSum[i];
-                qValueUCB[i] = qValue[i] + Math.sqrt((2 * Math.log(iteration)) / actionCount[i]);
-                copyContext = new Context(context);
-            }
-
-            int bestMoveIndex = maxInteger(qValueUCB);
+//            float reward = this.heuristicValueFunction.computeValue(copyContext, this.player, 0.01F) - heuristicScore;
+            // UCB1 over all moves, the exploration term only depends on the iteration
+            int bestMoveIndex = UCBKernel.selectUCT(vHatValuesSum, actionCount, legalMoves.size(),
+                    discountFactor, Math.sqrt(2 * Math.log(iteration)), qValue, false);
 //            vHatValuesSum[bestMoveIndex] += values[bestMoveIndex];
             actionCount[bestMoveIndex] += 1;
+            copyContext = new Context(context);
             game.apply(copyContext, legalMoves.get(bestMoveIndex));
             double test = -AMS(game, copyContext, maxIts, maxDepth - 1, opponents[0], stopTime);
 
@@ -158,6 +162,9 @@ public class AMSPlayground extends Group12AI {
 
         int bestMoveIndex = maxInteger(qValueUCB);
         updateIterations(iteration);
+        timeManager.endSearch();
+        searchStatistics.endSearch(iterations);
+        searchStatistics.selectionFromRemainder();
         // Return the move we wish to play
         return legalMoves.get(bestMoveIndex);
     }
@@ -165,10 +172,21 @@ public class AMSPlayground extends Group12AI {
     public double AMS(Game game, Context context, int maxIterations, int depth, int player, long stopTime) {
         Context copyContext = new Context(context);
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
+        searchStatistics.expanded();
         Node current = root;
         final int mover = current.context.state().mover();
         Random rand = new Random();
-        if (depth == 0 || current.context.trial().over()) return this.heuristicValueFunction.computeValue(copyContext, mover, 0.01F);
+        if (depth == 0 || current.context.trial().over()) {
+            // the heuristic evaluation takes the place of a playout
+            searchStatistics.addSelection(searchMaxDepth - depth);
+            final long evaluationStart = System.nanoTime();
+            final float value = this.heuristicValueFunction.computeValue(copyContext, mover, 0.01F);
+            searchStatistics.addPlayouts(1);
+            searchStatistics.addPlayoutActions(0L, 1L);
+            searchStatistics.addPlayoutNanos(System.nanoTime() - evaluationStart);
+            return value;
+        }
 
         int iteration = 0;
         double discountFactor = 1.0;
@@ -210,20 +228,14 @@ public class AMSPlayground extends Group12AI {
             vHatValuesSum[i] = values[i];
         }
         double[] qValue = new double[legalMoves.size()];
-        double[] qValueUCB = new double[legalMoves.size()];
         copyContext = new Context(context);
         int legalMoveSize = iteration;
         while (iteration < legalMoveSize + maxIterations &&
                 System.currentTimeMillis() < stopTime) {
-            for (int i = 0; i < legalMoves.size(); ++i) {
-                copyGame.apply(copyContext, legalMoves.get(i));
-//                float reward = this.heuristicValueFunction.computeValue(copyContext, this.player, 0.01F) - heuristicScore;
-                qValue[i] = 0 + discountFactor / actionCount[i] * vHatValuesSum[i];
-                qValueUCB[i] = qValue[i] + Math.sqrt((2 * Math.log(iteration)) / actionCount[i]);
-                copyContext = new Context(context);
-            }
-
-            int bestMoveIndex = maxInteger(qValueUCB);
+//            float reward = this.heuristicValueFunction.computeValue(copyContext, this.player, 0.01F) - heuristicScore;
+            // UCB1 over all moves, the exploration term only depends on the iteration
+            int bestMoveIndex = UCBKernel.selectUCT(vHatValuesSum, actionCount, legalMoves.size(),
+                    discountFactor, Math.sqrt(2 * Math.log(iteration)), qValue, false);
 //            vHatValuesSum[bestMoveIndex] += values[bestMoveIndex];
             actionCount[bestMoveIndex] += 1;
             game.apply(copyContext, legalMoves.get(bestMoveIndex));
@@ -290,7 +302,9 @@ public class AMSPlayground extends Group12AI {
         Node bestChild = null;
         double bestValue = Double.NEGATIVE_INFINITY;
         final double parentLog = Math.log(Math.max(1, current.visitCount));
-        final double twoParentLog = 2.0 * Math.log(Math.max(1, current.visitCount));
+        // parent terms are computed once, 1/n and sqrt(1/n) come from the kernel's lookup tables
+        final double sqrtParentLog = Math.sqrt(parentLog);
+        final double sqrtTwoParentLog = Math.sqrt(2.0 * parentLog);
         int numBestFound = 0;
 
         final int numChildren = current.children.size();
@@ -298,12 +312,17 @@ public class AMSPlayground extends Group12AI {
 
         for (int i = 0; i < numChildren; ++i) {
             final Node child = current.children.get(i);
-            final double exploit = child.scoreSums[mover] / child.visitCount;
-            final double variance = selectionStrategy.equals("UCT") ? exploit : exploit * (1-exploit);
-            final double explore = selectionStrategy.equals("UCT") ? Math.sqrt(twoParentLog / child.visitCount) :
-                    Math.sqrt(parentLog / child.visitCount * Math.min(.25, variance + Math.sqrt(2 * parentLog/ child.visitCount)));
+            final double invSqrtVisits = UCBKernel.invSqrt(child.visitCount);
+            final double exploit = child.scoreSums[mover] * UCBKernel.inv(child.visitCount);
+            final double explore;
+            if (ucb1Tuned) {
+                final double variance = exploit * (1-exploit);
+                explore = sqrtParentLog * invSqrtVisits * Math.sqrt(Math.min(.25, variance + sqrtTwoParentLog * invSqrtVisits));
+            } else {
+                explore = sqrtTwoParentLog * invSqrtVisits;
+            }
 
-            final double ucb1Value = variance + explore;
+            final double ucb1Value = exploit + explore;
 
             if (ucb1Value > bestValue) {
                 bestValue = ucb1Value;
@@ -361,6 +380,7 @@ public class AMSPlayground extends Group12AI {
     @Override
     public void initAI(final Game game, final int playerID) {
         this.player = playerID;
+        timeManager.startGame();
         if (this.heuristicsFromMetadata) {
             Ai aiMetadata = game.metadata().ai();
             if (aiMetadata != null && aiMetadata.heuristics() != null) {
@@ -45,6 +45,8 @@ public class AMSPlayground_Tuned extends Group12AI {
     protected FVector rootValueEstimates = null;
     protected int numPlayersInGame = 0;
     protected int iterations = 0;
+    /** Depth limit of the running search, AMS() is at depth searchMaxDepth - depth */
+    private int searchMaxDepth = 0;
     //-------------------------------------------------------------------------
 
     /**
@@ -72,11 +74,16 @@ public class AMSPlayground_Tuned extends Group12AI {
                     final int maxIterations,
                     final int maxDepth
             ) {
+        searchStatistics.startSearch(maxSeconds);
+        searchMaxDepth = maxDepth;
         // Start out by creating a new root node (no tree reuse in this example)
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
 
         // We'll respect any limitations on max seconds and max iterations (don't care about max depth)
-        final long stopTime = (maxSeconds > 0.0) ? System.currentTimeMillis() + (long) (maxSeconds * 1000L) : Long.MAX_VALUE;
+        // the time manager adds banked time to the time of the move if it has a game budget
+        timeManager.startSearch(maxSeconds, Integer.MAX_VALUE);
+        final long stopTime = timeManager.getDeadlineMillis();
         final int maxIts = (maxIterations >= 0) ? maxDepth : 10000000;
 
         Random rand = new Random();
@@ -158,6 +165,9 @@ public class AMSPlayground_Tuned extends Group12AI {
 
         int bestMoveIndex = maxInteger(qValueUCB);
         updateIterations(iteration);
+        timeManager.endSearch();
+        searchStatistics.endSearch(iterations);
+        searchStatistics.selectionFromRemainder();
         // Return the move we wish to play
         return legalMoves.get(bestMoveIndex);
     }
@@ -165,10 +175,21 @@ public class AMSPlayground_Tuned extends Group12AI {
     public double AMS(Game game, Context context, int maxIterations, int depth, int player, long stopTime) {
         Context copyContext = new Context(context);
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
+        searchStatistics.expanded();
         Node current = root;
         final int mover = current.context.state().mover();
         Random rand = new Random();
-        if (depth == 0 || current.context.trial().over()) return this.heuristicValueFunction.computeValue(copyContext, mover, 0.01F);
+        if (depth == 0 || current.context.trial().over()) {
+            // the heuristic evaluation takes the place of a playout
+            searchStatistics.addSelection(searchMaxDepth - depth);
+            final long evaluationStart = System.nanoTime();
+            final float value = this.heuristicValueFunction.computeValue(copyContext, mover, 0.01F);
+            searchStatistics.addPlayouts(1);
+            searchStatistics.addPlayoutActions(0L, 1L);
+            searchStatistics.addPlayoutNanos(System.nanoTime() - evaluationStart);
+            return value;
+        }
 
         int iteration = 0;
         double discountFactor = 1.0;
@@ -363,6 +384,7 @@ public class AMSPlayground_Tuned extends Group12AI {
     @Override
     public void initAI(final Game game, final int playerID) {
         this.player = playerID;
+        timeManager.startGame();
         if (this.heuristicsFromMetadata) {
             Ai aiMetadata = game.metadata().ai();
             if (aiMetadata != null && aiMetadata.heuristics() != null) {
@@ -49,6 +49,8 @@ public class AMS_Rollout_BP extends Group12AI {
     protected int numPlayersInGame = 0;
 
     protected int iterations = 0;
+    /** Depth limit of the running search, AMS() is at depth searchMaxDepth - depth */
+    private int searchMaxDepth = 0;
 
     //-------------------------------------------------------------------------
 
@@ -77,11 +79,16 @@ public class AMS_Rollout_BP extends Group12AI {
                     final int maxIterations,
                     final int maxDepth
             ) {
+        searchStatistics.startSearch(maxSeconds);
+        searchMaxDepth = maxDepth;
         // Start out by creating a new root node (no tree reuse in this example)
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
 
         // We'll respect any limitations on max seconds and max iterations (don't care about max depth)
-        final long stopTime = (maxSeconds > 0.0) ? System.currentTimeMillis() + (long) (maxSeconds * 1000L) : Long.MAX_VALUE;
+        // the time manager adds banked time to the time of the move if it has a game budget
+        timeManager.startSearch(maxSeconds, Integer.MAX_VALUE);
+        final long stopTime = timeManager.getDeadlineMillis();
         final int maxIts = (maxIterations >= 0) ? maxIterations : 10000000;
 
         int iteration = 0;
@@ -166,6 +173,9 @@ public class AMS_Rollout_BP extends Group12AI {
         updateIterations(iteration);
         int bestMoveIndex = maxInteger(qValueUCB);
 
+        timeManager.endSearch();
+        searchStatistics.endSearch(iterations);
+        searchStatistics.selectionFromRemainder();
         // Return the move we wish to play
         return legalMoves.get(bestMoveIndex);
     }
@@ -173,11 +183,17 @@ public class AMS_Rollout_BP extends Group12AI {
     public double[] AMS(Game game, Context context, int maxIterations, int depth, int player, long stopTime) {
         Context copyContext = new Context(context);
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
+        searchStatistics.expanded();
         Node current = root;
         //Mover equals who's turn it is in tree
         final int mover = current.context.state().mover();
         if (depth == 0 || current.context.trial().over()) {
+            searchStatistics.addSelection(searchMaxDepth - depth);
+            final long playoutStart = System.nanoTime();
             double[] result = PlayOut(current);
+            searchStatistics.addPlayouts(1);
+            searchStatistics.addPlayoutNanos(System.nanoTime() - playoutStart);
             return result;
         }
 
@@ -211,7 +227,9 @@ public class AMS_Rollout_BP extends Group12AI {
                 returnedValues = AMS(copyGame, copyContext, maxIterations, depth - 1, opponents[0], stopTime);
             }
 
+            final long backpropagationStart = System.nanoTime();
             values = Backpropagation(current, returnedValues, values, i);
+            searchStatistics.addBackpropagationNanos(System.nanoTime() - backpropagationStart);
             copyGame = game;
             ++iteration;
             copyContext = new Context(context);
@@ -253,7 +271,9 @@ public class AMS_Rollout_BP extends Group12AI {
                 returnedValues = AMS(game, copyContext, maxIterations, depth - 1, opponents[0], stopTime);
             }
 
+            final long backpropagationStart = System.nanoTime();
             vHatValuesSum = Backpropagation(current, returnedValues, vHatValuesSum, bestMoveIndex);
+            searchStatistics.addBackpropagationNanos(System.nanoTime() - backpropagationStart);
             ++iteration;
             copyContext = new Context(context);
         }
@@ -304,6 +324,7 @@ public class AMS_Rollout_BP extends Group12AI {
         }
         // This computes utilities for all players at the of the playout,
         // which will all be values in [-1.0, 1.0]
+        searchStatistics.addPlayoutActions(contextEnd.trial().numMoves() - currentNode.context.trial().numMoves(), 1);
         return AIUtils.utilities(contextEnd);
     }
 
@@ -416,6 +437,7 @@ public class AMS_Rollout_BP extends Group12AI {
     @Override
     public void initAI(final Game game, final int playerID) {
         this.player = playerID;
+        timeManager.startGame();
         if (this.heuristicsFromMetadata) {
             Ai aiMetadata = game.metadata().ai();
             if (aiMetadata != null && aiMetadata.heuristics() != null) {
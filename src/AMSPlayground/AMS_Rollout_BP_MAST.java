@@ -4,6 +4,8 @@ import Group12.Group12AI;
 import game.Game;
 import main.collections.FVector;
 import main.collections.FastArrayList;
+import mcts.MASTTable;
+import mcts.MoveKeys;
 import mcts.MCTS_MAST;
 import metadata.ai.Ai;
 import metadata.ai.heuristics.Heuristics;
@@ -18,7 +20,7 @@ import util.Move;
 import utils.AIUtils;
 
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -47,11 +49,18 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
     protected FVector rootValueEstimates = null;
     protected int numPlayersInGame = 0;
     protected int iterations = 0;
+    /** Depth limit of the running search, AMS() is at depth searchMaxDepth - depth */
+    private int searchMaxDepth = 0;
     /**
      * MAST variables
      */
-    protected Hashtable<Integer, Gram> grams;
+    protected final MASTTable mastTable = new MASTTable();
+    protected final MoveKeys moveKeys = new MoveKeys();
+    /** Keys of the moves of the running playout, reused by every playout */
+    private long[] historyKeys = new long[256];
     protected final double eps = 0.1;
+    /** Factor the MAST statistics are decayed by between the searches of a game, 1 to keep them whole */
+    protected double decay = 1.0;
 
     //-------------------------------------------------------------------------
 
@@ -80,12 +89,17 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
                     final int maxIterations,
                     final int maxDepth
             ) {
+        searchStatistics.startSearch(maxSeconds);
+        searchMaxDepth = maxDepth;
         // Start out by creating a new root node (no tree reuse in this example)
         final Node root = new Node(null, null, context);
-        this.grams = new Hashtable<>();
+        searchStatistics.addNodes(1);
+        this.mastTable.decay(decay);
 
         // We'll respect any limitations on max seconds and max iterations (don't care about max depth)
-        final long stopTime = (maxSeconds > 0.0) ? System.currentTimeMillis() + (long) (maxSeconds * 1000L) : Long.MAX_VALUE;
+        // the time manager adds banked time to the time of the move if it has a game budget
+        timeManager.startSearch(maxSeconds, Integer.MAX_VALUE);
+        final long stopTime = timeManager.getDeadlineMillis();
         final int maxIts = (maxIterations >= 0) ? maxIterations : 10000000;
 
         int iteration = 0;
@@ -170,6 +184,9 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
 
         int bestMoveIndex = maxInteger(qValueUCB);
         updateIterations(iteration);
+        timeManager.endSearch();
+        searchStatistics.endSearch(iterations);
+        searchStatistics.selectionFromRemainder();
         // Return the move we wish to play
         return legalMoves.get(bestMoveIndex);
     }
@@ -177,11 +194,17 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
     public double[] AMS(Game game, Context context, int maxIterations, int depth, int player, long stopTime) {
         Context copyContext = new Context(context);
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
+        searchStatistics.expanded();
         Node current = root;
         //Mover equals who's turn it is in tree
         final int mover = current.context.state().mover();
         if (depth == 0 || current.context.trial().over()) {
+            searchStatistics.addSelection(searchMaxDepth - depth);
+            final long playoutStart = System.nanoTime();
             double[] result = PlayOut(current);
+            searchStatistics.addPlayouts(1);
+            searchStatistics.addPlayoutNanos(System.nanoTime() - playoutStart);
             return result;
         }
 
@@ -215,7 +238,9 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
                 returnedValues = AMS(copyGame, copyContext, maxIterations, depth - 1, opponents[0], stopTime);
             }
 
+            final long backpropagationStart = System.nanoTime();
             values = Backpropagation(current, returnedValues.clone(), values.clone(), i);
+            searchStatistics.addBackpropagationNanos(System.nanoTime() - backpropagationStart);
             copyGame = game;
             ++iteration;
             copyContext = new Context(context);
@@ -257,7 +282,9 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
                 returnedValues = AMS(game, copyContext, maxIterations, depth - 1, opponents[0], stopTime);
             }
 
+            final long backpropagationStart = System.nanoTime();
             vHatValuesSum = Backpropagation(current, returnedValues.clone(), vHatValuesSum.clone(), bestMoveIndex);
+            searchStatistics.addBackpropagationNanos(System.nanoTime() - backpropagationStart);
             ++iteration;
             copyContext = new Context(context);
         }
@@ -301,23 +328,28 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
         Context contextEnd = currentNode.context;
         Game game = contextEnd.game();
 
-        List<Move> history = new ArrayList<>();
+        int numMoves = 0;
 
-        while (!contextEnd.trial().over()){
+        // a single copy of the node state is played out in place
+        if (!contextEnd.trial().over())
             contextEnd = new Context(contextEnd);
+        while (!contextEnd.trial().over()){
 
             FastArrayList<Move> legalMoves = getLegalMoves(game, contextEnd);
 
             Move bestMove = null;
+            long bestMoveKey = 0L;
             final double p = ThreadLocalRandom.current().nextDouble(1d);
             if (p <= eps){   // Explore
                 final int r = ThreadLocalRandom.current().nextInt(legalMoves.size());
                 bestMove = legalMoves.get(r);
+                bestMoveKey = MoveKeys.key(bestMove);
             }
 
             else {          // Exploit
                 double bestScore = Double.NEGATIVE_INFINITY;
                 int numBestFound = 0;
+                final long[] keys = moveKeys.keys(legalMoves);
 
                 for (int m = 0; m < legalMoves.size(); m++) {
                     Move evaluatingMove = legalMoves.get(m);
@@ -325,44 +357,40 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
 
 
                     double moveScore = Double.MAX_VALUE;
-                    Gram currentGram = grams.get(evaluatingMove.hashCode());
+                    final int slot = mastTable.find(keys[m]);
 
-                    if(currentGram != null){
-                        moveScore = currentGram.MoverScoreSums(mover);
+                    if(slot >= 0){
+                        moveScore = mastTable.meanScore(slot, mover);
                     }
 
                     if (moveScore > bestScore) {
                         bestScore = moveScore;
                         bestMove = evaluatingMove;
+                        bestMoveKey = keys[m];
                         numBestFound = 1;
                     } else if (moveScore == bestScore &&
                             ThreadLocalRandom.current().nextInt() % ++numBestFound == 0) {
                         bestMove = evaluatingMove;
+                        bestMoveKey = keys[m];
                     }
                 }
             }
 
-            history.add(bestMove);
+            if (numMoves == historyKeys.length)
+                historyKeys = Arrays.copyOf(historyKeys, numMoves * 2);
+            historyKeys[numMoves++] = bestMoveKey;
             game.apply(contextEnd, bestMove);
         }
 
         double[] results = AIUtils.utilities(contextEnd);
 
-        for (int i = 0; i < history.size(); ++i){
-            Gram currentGram = this.grams.get(history.get(i).hashCode());
-            if (currentGram == null){
-                Move currentMove = history.get(i);
-                Gram newGram = new Gram(results.clone());
-                grams.put(currentMove.hashCode(), newGram);
-            }
-
-            else {
-                currentGram.UpdateScoreSums(results.clone());
-            }
+        for (int i = 0; i < numMoves; ++i){
+            mastTable.update(historyKeys[i], results);
         }
 
         // This computes utilities for all players at the of the playout,
         // which will all be values in [-1.0, 1.0]
+        searchStatistics.addPlayoutActions(contextEnd.trial().numMoves() - currentNode.context.trial().numMoves(), 1);
         return results;
     }
 
@@ -475,6 +503,7 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
     @Override
     public void initAI(final Game game, final int playerID) {
         this.player = playerID;
+        timeManager.startGame();
         if (this.heuristicsFromMetadata) {
             Ai aiMetadata = game.metadata().ai();
             if (aiMetadata != null && aiMetadata.heuristics() != null) {
@@ -498,7 +527,7 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
         this.lastReturnedMove = null;
         this.numPlayersInGame = game.players().count();
 
-        this.grams = new Hashtable<>();
+        this.mastTable.clear();
     }
 
     @Override
@@ -524,29 +553,28 @@ public class AMS_Rollout_BP_MAST extends Group12AI {
         this.iterations = 0;
     }
 
+    public double getDecay() {
+        return this.decay;
+    }
 
-    private static class Gram{
-        private int visitCount;
-
-        private double[] scoreSums;
-
-        public Gram(final double[] scoreSums){
-            this.visitCount = 1;
-            this.scoreSums = scoreSums;
-        }
-
-        public double MoverScoreSums(int mover){
-            return scoreSums[mover] / visitCount;
-        }
+    /**
+     * Sets the factor the MAST statistics are decayed by between searches, 1 (the default) to
+     * keep them whole, 0 to start every search cold
+     *
+     * @param decay In [0, 1]
+     */
+    public void setDecay(final double decay) {
+        this.decay = decay;
+    }
 
-        public void UpdateScoreSums(final double[] scoreSums){
-            visitCount += 1;
-            for (int i = 0; i < scoreSums.length; ++i){
-                this.scoreSums[i] += scoreSums[i];
-            }
-        }
+    /**
+     * @return Number of moves with MAST statistics
+     */
+    public int getMASTTableSize() {
+        return this.mastTable.size();
     }
 
+
     //-------------------------------------------------------------------------
 
     /**
@@ -10,6 +10,8 @@ import metadata.ai.heuristics.terms.HeuristicTerm;
 import metadata.ai.heuristics.terms.Material;
 import metadata.ai.heuristics.terms.MobilitySimple;
 import metadata.ai.heuristics.transformations.HeuristicTransformation;
+import mcts.MoveKeys;
+import mcts.NGramTable;
 import metadata.ai.misc.Pair;
 import util.AI;
 import util.Context;
@@ -17,7 +19,7 @@ import util.Move;
 import utils.AIUtils;
 
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -45,15 +47,23 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
     protected FVector rootValueEstimates = null;
     protected int numPlayersInGame = 0;
     protected int iterations = 0;
+    /** Depth limit of the running search, AMS() is at depth searchMaxDepth - depth */
+    private int searchMaxDepth = 0;
     /**
      * NST variables
      */
-    protected Hashtable<Integer, Gram> grams;
-
     protected final int MAX_GRAMS = 3;
     protected final int MIN_VISITS = 7;
     protected final double eps = 0.1;
 
+    /** Largest number of N-grams statistics are kept for */
+    protected final int MAX_ENTRIES = 1 << 18;
+
+    protected final NGramTable grams = new NGramTable(MAX_GRAMS, MIN_VISITS, MAX_ENTRIES);
+    protected final MoveKeys moveKeys = new MoveKeys();
+    /** Keys of the moves of the running playout, reused by every playout */
+    private long[] historyKeys = new long[256];
+
     //-------------------------------------------------------------------------
 
     /**
@@ -81,14 +91,19 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
                     final int maxIterations,
                     final int maxDepth
             ) {
+        searchStatistics.startSearch(maxSeconds);
+        searchMaxDepth = maxDepth;
         // Start out by creating a new root node (no tree reuse in this example)
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
 
         // Reset gram table
-        this.grams = new Hashtable<>();
+        this.grams.clear();
         resetIterations();
         // We'll respect any limitations on max seconds and max iterations (don't care about max depth)
-        final long stopTime = (maxSeconds > 0.0) ? System.currentTimeMillis() + (long) (maxSeconds * 1000L) : Long.MAX_VALUE;
+        // the time manager adds banked time to the time of the move if it has a game budget
+        timeManager.startSearch(maxSeconds, Integer.MAX_VALUE);
+        final long stopTime = timeManager.getDeadlineMillis();
         final int maxIts = (maxIterations >= 0) ? maxIterations : 10000000;
 
         int iteration = 0;
@@ -175,6 +190,9 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
 
         int bestMoveIndex = maxInteger(qValueUCB);
         updateIterations(iteration);
+        timeManager.endSearch();
+        searchStatistics.endSearch(iterations);
+        searchStatistics.selectionFromRemainder();
         // Return the move we wish to play
         return legalMoves.get(bestMoveIndex);
     }
@@ -182,11 +200,17 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
     public double[] AMS(Game game, Context context, int maxIterations, int depth, int player, long stopTime) {
         Context copyContext = new Context(context);
         final Node root = new Node(null, null, context);
+        searchStatistics.addNodes(1);
+        searchStatistics.expanded();
         Node current = root;
         //Mover equals who's turn it is in tree
         final int mover = current.context.state().mover();
         if (depth == 0 || current.context.trial().over()) {
+            searchStatistics.addSelection(searchMaxDepth - depth);
+            final long playoutStart = System.nanoTime();
             double[] result = PlayOut(current);
+            searchStatistics.addPlayouts(1);
+            searchStatistics.addPlayoutNanos(System.nanoTime() - playoutStart);
             return result;
         }
 
@@ -220,7 +244,9 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
                 returnedValues = AMS(copyGame, copyContext, maxIterations, depth - 1, opponents[0], stopTime);
             }
 
+            final long backpropagationStart = System.nanoTime();
             values = Backpropagation(current, returnedValues, values, i);
+            searchStatistics.addBackpropagationNanos(System.nanoTime() - backpropagationStart);
             copyGame = game;
             ++iteration;
             copyContext = new Context(context);
@@ -264,7 +290,9 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
                 returnedValues = AMS(game, copyContext, maxIterations, depth - 1, opponents[0], stopTime);
             }
 
+            final long backpropagationStart = System.nanoTime();
             vHatValuesSum = Backpropagation(current, returnedValues, vHatValuesSum, bestMoveIndex);
+            searchStatistics.addBackpropagationNanos(System.nanoTime() - backpropagationStart);
             ++iteration;
             copyContext = new Context(context);
         }
@@ -333,124 +361,66 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
         Context contextEnd = currentNode.context;
         Game game = contextEnd.game();
 
-        List<Move> history = new ArrayList<>();
+        int numMoves = 0;
+        grams.startSequence();
 
-        while (!contextEnd.trial().over()){
+        // a single copy of the node state is played out in place
+        if (!contextEnd.trial().over())
             contextEnd = new Context(contextEnd);
+        while (!contextEnd.trial().over()){
 
             FastArrayList<Move> legalMoves = getLegalMoves(game, contextEnd);
 
             Move bestMove = null;
+            long bestMoveKey = 0L;
             final double p = ThreadLocalRandom.current().nextDouble(1d);
             if (p <= eps){   // Explore
                 final int r = ThreadLocalRandom.current().nextInt(legalMoves.size());
                 bestMove = legalMoves.get(r);
+                bestMoveKey = MoveKeys.key(bestMove);
             }
 
             else {          // Exploit
                 double bestScore = Double.NEGATIVE_INFINITY;
                 int numBestFound = 0;
+                final long[] keys = moveKeys.keys(legalMoves);
 
                 for (int m = 0; m < legalMoves.size(); m++) {
                     Move evaluatingMove = legalMoves.get(m);
                     final int mover = contextEnd.state().mover();
 
-                    ArrayList<Double> gramScoreSums = new ArrayList<>();
-
-                    Gram currentGram = grams.get(evaluatingMove.hashCode());
-
-                    if(currentGram != null){
-                        gramScoreSums = getGramsScoreSums(currentGram, gramScoreSums, history, history.size(), 1, mover);
-                    }
-
-                    else{
-                        gramScoreSums.add(Double.MAX_VALUE);
-                    }
-
-                    double moveScore = 0;
-
-                    for (int i = 0; i < gramScoreSums.size(); i++){
-                        moveScore += gramScoreSums.get(i);
-                    }
-
-                    moveScore = moveScore / gramScoreSums.size();
+                    final double moveScore = grams.score(keys[m], mover);
 
                     if (moveScore > bestScore) {
                         bestScore = moveScore;
                         bestMove = evaluatingMove;
+                        bestMoveKey = keys[m];
                         numBestFound = 1;
                     } else if (moveScore == bestScore &&
                             ThreadLocalRandom.current().nextInt() % ++numBestFound == 0) {
                         bestMove = evaluatingMove;
+                        bestMoveKey = keys[m];
                     }
                 }
             }
 
-            history.add(bestMove);
+            if (numMoves == historyKeys.length)
+                historyKeys = Arrays.copyOf(historyKeys, numMoves * 2);
+            final long moveKey = bestMoveKey;
+            historyKeys[numMoves++] = moveKey;
+            grams.push(moveKey);
             game.apply(contextEnd, bestMove);
         }
 
         double[] results = AIUtils.utilities(contextEnd);
-
-        for (int i = 0; i < history.size(); ++i){
-            Gram currentGram = this.grams.get(history.get(i).hashCode());
-            if (currentGram == null){
-                addGram(null, history, i, 1, results);
-            }
-
-            else {
-                updateGramsScoreSums(currentGram, history, i, 1, results);
-            }
-        }
+        grams.update(historyKeys, numMoves, results);
 
         // This computes utilities for all players at the of the playout,
         // which will all be values in [-1.0, 1.0]
+        searchStatistics.addPlayoutActions(contextEnd.trial().numMoves() - currentNode.context.trial().numMoves(), 1);
         return results;
     }
 
-    private Gram addGram(Gram nextGram, List<Move> history, int currentMove, int gram, double[] results){
-        Gram newGram = new Gram(history.get(currentMove), nextGram , results);
-
-        if (nextGram == null){
-            grams.put(history.get(currentMove).hashCode(), newGram);
-        }
-        else {
-            nextGram.previousGram.put(history.get(currentMove).hashCode(), newGram);
-        }
-
-        if (currentMove > 0 && gram <= MAX_GRAMS){
-            addGram(newGram, history, currentMove-1, ++gram, results);
-        }
-
-        return newGram;
-    }
-
-    private void updateGramsScoreSums(Gram currentGram, List<Move> history, int currentMove, int gram, double[] results){
-        currentGram.UpdateScoreSums(results);
-
-        if (currentMove > 0 && gram <= MAX_GRAMS){
-            Gram previousGram = currentGram.previousGram.get(history.get(currentMove-1).hashCode());
-            if(previousGram == null){
-                addGram(currentGram, history, --currentMove, ++gram, results);
-            }
-            else {
-                updateGramsScoreSums(previousGram, history, --currentMove, ++gram, results);
-            }
-        }
-    }
-
-    private ArrayList<Double> getGramsScoreSums(Gram currentGram, ArrayList<Double> gramScoreSums, List<Move> history, int currentMove, int gram, int mover){
-        ArrayList<Double> gramScores = gramScoreSums;
-        gramScores.add(currentGram.MoverScoreSums(mover));
-        if (currentMove > 0 && gram <= MAX_GRAMS){
-            Gram previousGram = currentGram.previousGram.get(history.get(currentMove-1).hashCode());
-            if (previousGram != null && previousGram.visitCount >= MIN_VISITS){
-                gramScores = getGramsScoreSums(previousGram, gramScores, history, currentMove-1, gram+1, mover);
-            }
-        }
-        return gramScores;
-    }
-
 
     //Backpropagate results, similar to MCTS_Vanilla backpropagation
     private double[][] Backpropagation(Node currentNode, double[] result, double[][] values, int action) {
@@ -561,6 +531,7 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
     @Override
     public void initAI(final Game game, final int playerID) {
         this.player = playerID;
+        timeManager.startGame();
         if (this.heuristicsFromMetadata) {
             Ai aiMetadata = game.metadata().ai();
             if (aiMetadata != null && aiMetadata.heuristics() != null) {
@@ -585,7 +556,7 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
         this.numPlayersInGame = game.players().count();
 
         // NST
-        this.grams = new Hashtable<>();
+        this.grams.clear();
     }
 
     @Override
@@ -611,40 +582,14 @@ public class AMS_Rollout_BP_NST_Tuned extends Group12AI {
         this.iterations = 0;
     }
 
-    //-------------------------------------------------------------------------
-
     /**
-     * Inner class for grams
+     * @return N-gram statistics of the last search
      */
-    private static class Gram{
-        private final Hashtable<Integer, Gram> previousGram;
-
-        private int visitCount;
-
-        private double[] scoreSums;
-
-        public Gram(final Move move, final Gram nextGram, final double[] scoreSums){
-            this.previousGram = new Hashtable<>();
-            this.visitCount = 1;
-            this.scoreSums = scoreSums;
-
-            if (nextGram != null){
-                nextGram.previousGram.put(move.hashCode(), this);
-            }
-        }
-
-        public double MoverScoreSums(int mover){
-            return scoreSums[mover] / visitCount;
-        }
-
-        public void UpdateScoreSums(final double[] scoreSums){
-            visitCount += 1;
-            for (int i = 0; i < scoreSums.length; ++i){
-                this.scoreSums[i] += scoreSums[i];
-            }
-        }
+    public NGramTable getNGramTable() {
+        return this.grams;
     }
 
+    //-------------------------------------------------------------------------
 
     /**
      * Inner class for nodes used by AMS
@@ -3,5 +3,21 @@ package Group12;
 import util.AI;
 
 public abstract class Group12AI extends AI {
+    /** Deadline checks, early termination and time banking of the search loop */
+    protected final TimeManager timeManager = new TimeManager();
+    /** Statistics of the last search, filled in by every selectAction() */
+    protected final SearchStatistics searchStatistics = new SearchStatistics();
+
     public abstract int getIterations();
+
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    /**
+     * @return Statistics of the last search, overwritten by the next one
+     */
+    public SearchStatistics getSearchStatistics() {
+        return searchStatistics;
+    }
 }
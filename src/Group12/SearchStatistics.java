@@ -0,0 +1,235 @@
+package Group12;
+
+/**
+ * Statistics of the last search of a Group12AI agent.
+ *
+ * The agent calls startSearch() when selectAction() begins and endSearch() before it
+ * returns, and adds the counts and phase timings of its iterations in between. Only
+ * counters are updated during the search, so recording them costs a few additions per
+ * iteration; agents that time phases with System.nanoTime() may leave that switched off,
+ * in which case the phase times are 0. The object is overwritten by the next search.
+ */
+public final class SearchStatistics {
+
+    /** Time limit and wall clock of the search */
+    private double maxSeconds = 0.0;
+    private long startNanos = 0L;
+    private long searchNanos = 0L;
+    private long firstExpansionNanos = -1L;
+
+    /** Counts of the search */
+    private int iterations = 0;
+    private int playouts = 0;
+    private int nodesAllocated = 0;
+
+    /** Depth of the node every iteration selected, and the moves of the recorded playouts */
+    private long sumSelectionDepth = 0L;
+    private long numSelections = 0L;
+    private int maxSelectionDepth = 0;
+    private long playoutActions = 0L;
+    private long numRecordedPlayouts = 0L;
+
+    /** Time spent in the phases of the search */
+    private long selectionNanos = 0L;
+    private long playoutNanos = 0L;
+    private long backpropagationNanos = 0L;
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Resets all statistics and starts the clock of a search
+     *
+     * @param maxSeconds Time limit of the search, no limit if not positive
+     */
+    public void startSearch(final double maxSeconds) {
+        this.maxSeconds = maxSeconds;
+        startNanos = System.nanoTime();
+        searchNanos = 0L;
+        firstExpansionNanos = -1L;
+        iterations = 0;
+        playouts = 0;
+        nodesAllocated = 0;
+        sumSelectionDepth = 0L;
+        numSelections = 0L;
+        maxSelectionDepth = 0;
+        playoutActions = 0L;
+        numRecordedPlayouts = 0L;
+        selectionNanos = 0L;
+        playoutNanos = 0L;
+        backpropagationNanos = 0L;
+    }
+
+    /**
+     * Stops the clock of the search
+     *
+     * @param iterations
+     */
+    public void endSearch(final int iterations) {
+        searchNanos = System.nanoTime() - startNanos;
+        this.iterations = iterations;
+    }
+
+    /**
+     * For searches that do not time their selection separately, such as the recursive AMS
+     * agents: counts all time of the search outside playouts and backpropagation as
+     * selection. To be called after endSearch().
+     */
+    public void selectionFromRemainder() {
+        selectionNanos = Math.max(0L, searchNanos - playoutNanos - backpropagationNanos);
+    }
+
+    /**
+     * Marks the first node the search expanded, later calls are ignored
+     */
+    public void expanded() {
+        if (firstExpansionNanos < 0L)
+            firstExpansionNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Marks a node expanded at the given System.nanoTime(), keeping the earliest expansion
+     * over all workers of a parallel search
+     *
+     * @param nanoTime
+     */
+    public void expandedAt(final long nanoTime) {
+        final long nanos = nanoTime - startNanos;
+        if (firstExpansionNanos < 0L || nanos < firstExpansionNanos)
+            firstExpansionNanos = Math.max(0L, nanos);
+    }
+
+    public void addPlayouts(final int numPlayouts) {
+        playouts += numPlayouts;
+    }
+
+    public void addNodes(final int numNodes) {
+        nodesAllocated += numNodes;
+    }
+
+    /**
+     * @param depth Depth of a selected node, the root being at depth 0
+     */
+    public void addSelection(final int depth) {
+        sumSelectionDepth += depth;
+        numSelections++;
+        if (depth > maxSelectionDepth)
+            maxSelectionDepth = depth;
+    }
+
+    /**
+     * Adds the selection depths gathered by a worker of the search
+     *
+     * @param sumDepth
+     * @param numSelections
+     * @param maxDepth
+     */
+    public void addSelections(final long sumDepth, final long numSelections, final int maxDepth) {
+        sumSelectionDepth += sumDepth;
+        this.numSelections += numSelections;
+        maxSelectionDepth = Math.max(maxSelectionDepth, maxDepth);
+    }
+
+    /**
+     * @param numActions Total number of moves of the playouts
+     * @param numPlayouts
+     */
+    public void addPlayoutActions(final long numActions, final long numPlayouts) {
+        playoutActions += numActions;
+        numRecordedPlayouts += numPlayouts;
+    }
+
+    public void addSelectionNanos(final long nanos) {
+        selectionNanos += nanos;
+    }
+
+    public void addPlayoutNanos(final long nanos) {
+        playoutNanos += nanos;
+    }
+
+    public void addBackpropagationNanos(final long nanos) {
+        backpropagationNanos += nanos;
+    }
+
+    //-------------------------------------------------------------------------
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getPlayouts() {
+        return playouts;
+    }
+
+    public int getNodesAllocated() {
+        return nodesAllocated;
+    }
+
+    public double getSearchSeconds() {
+        return searchNanos / 1.0e9;
+    }
+
+    public double getIterationsPerSecond() {
+        return (searchNanos > 0L) ? iterations / getSearchSeconds() : 0.0;
+    }
+
+    public double getPlayoutsPerSecond() {
+        return (searchNanos > 0L) ? playouts / getSearchSeconds() : 0.0;
+    }
+
+    public int getMaxSelectionDepth() {
+        return maxSelectionDepth;
+    }
+
+    public double getAverageSelectionDepth() {
+        return (numSelections > 0L) ? (double) sumSelectionDepth / numSelections : 0.0;
+    }
+
+    /**
+     * @return Average number of moves of the playouts, over the playouts whose length was recorded
+     */
+    public double getAveragePlayoutLength() {
+        return (numRecordedPlayouts > 0L) ? (double) playoutActions / numRecordedPlayouts : 0.0;
+    }
+
+    /**
+     * Phase times are summed over all workers of a parallel search, so they may exceed
+     * the wall clock time of the search.
+     *
+     * @return Time spent selecting (and expanding) nodes
+     */
+    public double getSelectionSeconds() {
+        return selectionNanos / 1.0e9;
+    }
+
+    public double getPlayoutSeconds() {
+        return playoutNanos / 1.0e9;
+    }
+
+    public double getBackpropagationSeconds() {
+        return backpropagationNanos / 1.0e9;
+    }
+
+    /**
+     * @return Time from the start of the search to the first node it expanded, -1 if it expanded none
+     */
+    public double getSecondsToFirstExpansion() {
+        return (firstExpansionNanos >= 0L) ? firstExpansionNanos / 1.0e9 : -1.0;
+    }
+
+    /**
+     * @return Time the search took beyond its time limit, 0 if it finished in time or had no limit
+     */
+    public double getDeadlineOverrunSeconds() {
+        return (maxSeconds > 0.0) ? Math.max(0.0, getSearchSeconds() - maxSeconds) : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d iterations (%.0f/s), %d playouts (%.0f/s), %d nodes, selection depth %.2f avg / %d max, " +
+                        "playout length %.2f, selection %.3fs, playout %.3fs, backpropagation %.3fs, " +
+                        "first expansion after %.6fs, deadline overrun %.6fs",
+                iterations, getIterationsPerSecond(), playouts, getPlayoutsPerSecond(), nodesAllocated,
+                getAverageSelectionDepth(), maxSelectionDepth, getAveragePlayoutLength(), getSelectionSeconds(),
+                getPlayoutSeconds(), getBackpropagationSeconds(), getSecondsToFirstExpansion(), getDeadlineOverrunSeconds());
+    }
+}
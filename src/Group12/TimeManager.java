@@ -0,0 +1,238 @@
+package Group12;
+
+/**
+ * Time manager for the search loop of a Group12AI agent.
+ *
+ * Instead of reading the wall clock every iteration, the search calls continueSearch() with
+ * its iteration count, and the deadline (System.nanoTime()) is only checked every
+ * checkInterval iterations. On those checks the search can also stop early: once the most
+ * visited root child leads the runner-up by more visits than the search can still run,
+ * more iterations cannot change the robust child. This only keeps the played move if the
+ * agent plays the robust child, so agents selecting their move otherwise (such as by max
+ * child) pass no root statistics and never stop early.
+ *
+ * With a total-game budget, time a move does not use is banked, and later moves may spend
+ * part of the bank on top of their own time, without exceeding the budget.
+ *
+ * Parallel searches start and end one search for all their workers, and every worker
+ * checks the deadline with continueParallelSearch() on its own iteration count.
+ */
+public final class TimeManager {
+
+    /**
+     * Visit counts of the root children, used for early termination
+     */
+    public interface RootStatistics {
+        /**
+         * Writes the visit counts of the most and second most visited root child
+         * (0 if there is no such child) to visits[0] and visits[1].
+         *
+         * @param visits
+         */
+        void topTwoVisits(int[] visits);
+    }
+
+    //-------------------------------------------------------------------------
+
+    /** Number of iterations between two deadline checks */
+    private int checkInterval = 16;
+    /**
+     * If true, the search stops as soon as the runner-up can no longer catch the most visited
+     * root child. Only applies to searches that pass root statistics.
+     */
+    private boolean earlyTermination = false;
+    /** Thinking time for the whole game in seconds, banking is disabled if not positive */
+    private double gameBudgetSeconds = 0.0;
+    /** Fraction of the bank a single move may spend on top of its own time */
+    private double bankSpendFraction = 0.5;
+
+    /** Time banked and used so far in this game */
+    private double bankedSeconds = 0.0;
+    private double usedSeconds = 0.0;
+
+    /** State of the running search */
+    private long startNanos = 0L;
+    private long deadlineNanos = Long.MAX_VALUE;
+    private int maxIterations = Integer.MAX_VALUE;
+    /** Iteration of the last deadline check, the first check is after checkInterval iterations */
+    private int lastCheckIteration = 0;
+    private double moveSeconds = 0.0;
+    private final int[] topTwo = new int[2];
+
+    /** Statistics of the last search */
+    private double lastAllottedSeconds = 0.0;
+    private double lastElapsedSeconds = 0.0;
+    private boolean lastStoppedEarly = false;
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Resets the bank, to be called when a new game starts (initAI)
+     */
+    public void startGame() {
+        bankedSeconds = 0.0;
+        usedSeconds = 0.0;
+    }
+
+    /**
+     * Starts the deadline of a search.
+     *
+     * @param maxSeconds Time for this move, no time limit if not positive
+     * @param maxIterations Iteration limit, Integer.MAX_VALUE for none
+     */
+    public void startSearch(final double maxSeconds, final int maxIterations) {
+        startNanos = System.nanoTime();
+        this.maxIterations = maxIterations;
+        lastCheckIteration = 0;
+        lastStoppedEarly = false;
+        moveSeconds = maxSeconds;
+
+        double allottedSeconds = maxSeconds;
+        if (maxSeconds > 0.0 && gameBudgetSeconds > 0.0) {
+            allottedSeconds += bankedSeconds * bankSpendFraction;
+            allottedSeconds = Math.min(allottedSeconds, Math.max(0.0, gameBudgetSeconds - usedSeconds));
+        }
+        lastAllottedSeconds = allottedSeconds;
+        deadlineNanos = (allottedSeconds > 0.0) ? startNanos + (long) (allottedSeconds * 1.0e9) : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param numIterations Iterations the search has run so far
+     * @param rootStatistics Visit counts of the root children, null to disable early termination.
+     * Only to be given if the search plays the most visited root child.
+     * @return True if the search should run another iteration
+     */
+    public boolean continueSearch(final int numIterations, final RootStatistics rootStatistics) {
+        if (numIterations >= maxIterations)
+            return false;
+        if (numIterations - lastCheckIteration < checkInterval)
+            return true;
+        lastCheckIteration = numIterations;
+
+        final long now = System.nanoTime();
+        if (now >= deadlineNanos)
+            return false;
+
+        if (earlyTermination && rootStatistics != null && numIterations > 0) {
+            // iterations we can still run, at the rate of the search so far
+            double remainingIterations = maxIterations - (double) numIterations;
+            if (deadlineNanos != Long.MAX_VALUE) {
+                final double iterationsPerNano = numIterations / (double) Math.max(1L, now - startNanos);
+                remainingIterations = Math.min(remainingIterations, iterationsPerNano * (deadlineNanos - now));
+            }
+            if (remainingIterations < Integer.MAX_VALUE) {
+                rootStatistics.topTwoVisits(topTwo);
+                if (topTwo[0] - topTwo[1] > remainingIterations) {
+                    lastStoppedEarly = true;
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * For the workers of a parallel search, which each count their own iterations: checks
+     * the deadline every checkInterval iterations of the calling worker. The workers keep to
+     * the iteration limit themselves, and never stop early. Safe to call from several
+     * threads, since it only reads the deadline set by startSearch().
+     *
+     * @param numIterations Iterations the calling worker has run so far
+     * @return True if the worker should run another iteration
+     */
+    public boolean continueParallelSearch(final int numIterations) {
+        return numIterations % checkInterval != 0 || System.nanoTime() < deadlineNanos;
+    }
+
+    /**
+     * Ends the running search and banks the time it saved
+     */
+    public void endSearch() {
+        lastElapsedSeconds = (System.nanoTime() - startNanos) / 1.0e9;
+        if (gameBudgetSeconds > 0.0 && moveSeconds > 0.0) {
+            usedSeconds += lastElapsedSeconds;
+            bankedSeconds = Math.max(0.0, bankedSeconds + moveSeconds - lastElapsedSeconds);
+        }
+    }
+
+    //-------------------------------------------------------------------------
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    /**
+     * Sets the number of iterations between two deadline checks. Larger values read the
+     * clock less often, but may overrun the deadline by up to that many iterations.
+     *
+     * @param checkInterval
+     */
+    public void setCheckInterval(final int checkInterval) {
+        this.checkInterval = Math.max(1, checkInterval);
+    }
+
+    public boolean getEarlyTermination() {
+        return earlyTermination;
+    }
+
+    public void setEarlyTermination(final boolean earlyTermination) {
+        this.earlyTermination = earlyTermination;
+    }
+
+    public double getGameBudgetSeconds() {
+        return gameBudgetSeconds;
+    }
+
+    /**
+     * Sets the thinking time for a whole game, which enables banking of saved time.
+     *
+     * @param gameBudgetSeconds
+     * @param bankSpendFraction Fraction of the bank a single move may spend on top of its own time
+     */
+    public void setGameBudget(final double gameBudgetSeconds, final double bankSpendFraction) {
+        this.gameBudgetSeconds = gameBudgetSeconds;
+        this.bankSpendFraction = Math.max(0.0, Math.min(1.0, bankSpendFraction));
+    }
+
+    public double getBankedSeconds() {
+        return bankedSeconds;
+    }
+
+    /**
+     * @return Time the last search was allowed to take, 0 if it had no time limit
+     */
+    public double getLastAllottedSeconds() {
+        return lastAllottedSeconds;
+    }
+
+    /**
+     * For searches that check their deadline themselves, such as the recursive AMS agents,
+     * which cannot count iterations for continueSearch()
+     *
+     * @return Deadline of the running search on the System.currentTimeMillis() clock,
+     * Long.MAX_VALUE if it has no time limit
+     */
+    public long getDeadlineMillis() {
+        if (deadlineNanos == Long.MAX_VALUE)
+            return Long.MAX_VALUE;
+        return System.currentTimeMillis() + (deadlineNanos - System.nanoTime()) / 1000000L;
+    }
+
+    public double getLastElapsedSeconds() {
+        return lastElapsedSeconds;
+    }
+
+    /**
+     * @return Time the last search left unused of the time it was given for its move
+     */
+    public double getLastSavedSeconds() {
+        return (moveSeconds > 0.0) ? Math.max(0.0, moveSeconds - lastElapsedSeconds) : 0.0;
+    }
+
+    /**
+     * @return True if the last search stopped because the best root child could no longer be caught
+     */
+    public boolean getLastStoppedEarly() {
+        return lastStoppedEarly;
+    }
+}
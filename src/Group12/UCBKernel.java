@@ -0,0 +1,142 @@
+package Group12;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UCB child selection over contiguous primitive child statistics.
+ *
+ * The caller keeps the visit counts and score sums of all children of a node in two
+ * parallel arrays and computes the parent term (the log of the parent visits) once per
+ * descent. The per-child terms 1/n and sqrt(1/n) come from lookup tables for small visit
+ * counts, so for most children a selection costs a few multiplications and no Math.log,
+ * Math.sqrt or division. The loops are plain indexed loops over primitive arrays, which
+ * the JIT unrolls. There is no vectorised variant: the project is built with JDK 13, and
+ * the incubator Vector API (jdk.incubator.vector) needs JDK 16 or later.
+ *
+ * Visit counts passed to the kernel must be positive.
+ */
+public final class UCBKernel {
+
+    /** Visit counts below this take 1/n and sqrt(1/n) from the lookup tables */
+    public static final int TABLE_SIZE = 4096;
+
+    private static final double[] INV = new double[TABLE_SIZE];
+    private static final double[] INV_SQRT = new double[TABLE_SIZE];
+
+    static {
+        INV[0] = Double.POSITIVE_INFINITY;
+        INV_SQRT[0] = Double.POSITIVE_INFINITY;
+        for (int n = 1; n < TABLE_SIZE; n++) {
+            INV[n] = 1.0 / n;
+            INV_SQRT[n] = Math.sqrt(1.0 / n);
+        }
+    }
+
+    private UCBKernel() {
+    }
+
+    /**
+     * @param n
+     * @return 1 / n
+     */
+    public static double inv(final int n) {
+        return (n < TABLE_SIZE) ? INV[n] : 1.0 / n;
+    }
+
+    /**
+     * @param n
+     * @return sqrt(1 / n)
+     */
+    public static double invSqrt(final int n) {
+        return (n < TABLE_SIZE) ? INV_SQRT[n] : Math.sqrt(1.0 / n);
+    }
+
+    /**
+     * UCT: selects the child maximising
+     * scale * scoreSums[i] / visitCounts[i] + exploration * sqrt(1 / visitCounts[i]).
+     *
+     * @param scoreSums Score sums of the children, for the player to move in the parent
+     * @param visitCounts Visit counts of the children
+     * @param numChildren Number of children, the arrays may be longer
+     * @param scale Factor applied to the mean score, 1 for a plain average
+     * @param exploration Exploration term of the parent, e.g. C * sqrt(log(parent visits))
+     * @param means If not null, receives the scaled mean score of every child
+     * @param randomTies If true, ties are broken uniformly at random, otherwise the first best child wins
+     * @return Index of the selected child, -1 if there are no children
+     */
+    public static int selectUCT(final double[] scoreSums, final int[] visitCounts, final int numChildren,
+                                final double scale, final double exploration, final double[] means,
+                                final boolean randomTies) {
+        int bestChild = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int numBestFound = 0;
+
+        for (int i = 0; i < numChildren; i++) {
+            final int n = visitCounts[i];
+            final double mean;
+            final double explore;
+            if (n < TABLE_SIZE) {
+                mean = scale * scoreSums[i] * INV[n];
+                explore = exploration * INV_SQRT[n];
+            } else {
+                mean = scale * scoreSums[i] / n;
+                explore = exploration * Math.sqrt(1.0 / n);
+            }
+            if (means != null)
+                means[i] = mean;
+            final double value = mean + explore;
+
+            if (value > bestValue || bestChild < 0) {
+                bestValue = value;
+                bestChild = i;
+                numBestFound = 1;
+            } else if (randomTies && value == bestValue &&
+                    ThreadLocalRandom.current().nextInt() % ++numBestFound == 0) {
+                bestChild = i;
+            }
+        }
+
+        return bestChild;
+    }
+
+    /**
+     * UCB1-Tuned: selects the child maximising
+     * mean + sqrt(log(N) / n * min(1/4, mean * (1 - mean) + sqrt(2 * log(N) / n))).
+     *
+     * @param scoreSums Score sums of the children, for the player to move in the parent
+     * @param visitCounts Visit counts of the children
+     * @param numChildren Number of children, the arrays may be longer
+     * @param parentLog log(parent visits)
+     * @param randomTies If true, ties are broken uniformly at random, otherwise the first best child wins
+     * @return Index of the selected child, -1 if there are no children
+     */
+    public static int selectUCB1Tuned(final double[] scoreSums, final int[] visitCounts, final int numChildren,
+                                      final double parentLog, final boolean randomTies) {
+        int bestChild = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int numBestFound = 0;
+
+        final double sqrtParentLog = Math.sqrt(parentLog);
+        final double sqrtTwoParentLog = Math.sqrt(2 * parentLog);
+
+        for (int i = 0; i < numChildren; i++) {
+            final int n = visitCounts[i];
+            final double invSqrtN = invSqrt(n);
+            final double mean = scoreSums[i] * inv(n);
+            final double variance = mean * (1 - mean);
+            final double value = mean + sqrtParentLog * invSqrtN *
+                    Math.sqrt(Math.min(.25, variance + sqrtTwoParentLog * invSqrtN));
+
+            if (value > bestValue || bestChild < 0) {
+                bestValue = value;
+                bestChild = i;
+                numBestFound = 1;
+            } else if (randomTies && value == bestValue &&
+                    ThreadLocalRandom.current().nextInt() % ++numBestFound == 0) {
+                bestChild = i;
+            }
+        }
+
+        return bestChild;
+    }
+}
@@ -2,6 +2,7 @@ package experiments;
 
 import AMSPlayground.*;
 import Group12.Group12AI;
+import Group12.SearchStatistics;
 import game.Game;
 import game.types.state.GameType;
 import main.collections.FastArrayList;
@@ -237,6 +238,10 @@ public class ThreadedExperiments {
                         long[] times = new long[numSimulations];
                         int[] iterations = new int[numSimulations];
                         int[] selectedActions = new int[numSimulations];
+                        double[] iterationsPerSecond = new double[numSimulations];
+                        double[] selectionDepths = new double[numSimulations];
+                        double[] playoutLengths = new double[numSimulations];
+                        double[] deadlineOverruns = new double[numSimulations];
 
                         // NOTE: in our following loop through number of games, the different
                         // agents are always assigned the same player number. For example,
@@ -267,7 +272,7 @@ public class ThreadedExperiments {
                                 final int mover = context.state().mover();
 
                                 // retrieve mover from list of agents
-                                final AI agent = agents.get(mover);
+                                final Group12AI agent = agents.get(mover);
 
                                 // ask agent to select a move
                                 // we'll give them a search time limit of 0.2 seconds per decision
@@ -309,6 +314,13 @@ public class ThreadedExperiments {
                                     selectedActions[0] += 1;
                                     iterations[0] += agents.get(1).getIterations();
                                 }
+                                if (mover == 1 || mover == 2) {
+                                    final SearchStatistics statistics = agent.getSearchStatistics();
+                                    iterationsPerSecond[mover - 1] += statistics.getIterationsPerSecond();
+                                    selectionDepths[mover - 1] += statistics.getAverageSelectionDepth();
+                                    playoutLengths[mover - 1] += statistics.getAveragePlayoutLength();
+                                    deadlineOverruns[mover - 1] += statistics.getDeadlineOverrunSeconds();
+                                }
                                 if (mover == 2) {
                                     //                    System.out.print(", " + selectionTime + "\n");
                                     times[1] += selectionTime;
@@ -349,6 +361,18 @@ public class ThreadedExperiments {
                                 "\naverage number of iterations = " +
                                 iterations[0] / selectedActions[0] + "/" +
                                 iterations[1] / selectedActions[1] +
+                                "\naverage iterations per second = " +
+                                iterationsPerSecond[0] / selectedActions[0] + "/" +
+                                iterationsPerSecond[1] / selectedActions[1] +
+                                "\naverage selection depth = " +
+                                selectionDepths[0] / selectedActions[0] + "/" +
+                                selectionDepths[1] / selectedActions[1] +
+                                "\naverage playout length = " +
+                                playoutLengths[0] / selectedActions[0] + "/" +
+                                playoutLengths[1] / selectedActions[1] +
+                                "\naverage deadline overrun (s) = " +
+                                deadlineOverruns[0] / selectedActions[0] + "/" +
+                                deadlineOverruns[1] / selectedActions[1] +
                                 "\nwinning rate = " +
                                 ((float) results[0] * 100f) / (float) numGames + "/" +
                                 ((float) results[1] * 100f) / (float) numGames + "/" +
@@ -0,0 +1,156 @@
+package experiments.performance;
+
+import Group12.Group12AI;
+import game.Game;
+import main.collections.FastArrayList;
+import mcts.MCTSEngine;
+import mcts.MCTS_MAST;
+import mcts.MCTS_MAST_Tuned;
+import mcts.MCTS_NSTv2;
+import mcts.MCTS_NSTv2_Tuned;
+import mcts.MCTS_Vanilla;
+import mcts.MCTS_Vanilla_Tuned;
+import mcts.MCTS_Various_Enhancements;
+import util.AI;
+import util.Context;
+import util.GameLoader;
+import util.Move;
+import util.Trial;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Iterations per second of the MCTS agents on fixed positions, in two configurations:
+ * a fixed number of iterations per search, and a fixed time per search, which also
+ * measures by how much the searches overrun their time. Only uses the AI interface, so the
+ * same benchmark runs on agents with and without the shared MCTSEngine to compare them.
+ * Agents that do not count their iterations (not a Group12AI) only report their overrun
+ * in the timed configuration.
+ *
+ * Takes an optional agent name (e.g. "MCTS_MAST", or "all") as first argument to benchmark
+ * only that agent, so every agent can be measured in a JVM of its own, and an optional
+ * results file as second argument, to which the results are appended as CSV lines
+ * (game, agent, configuration, iterations per second, average overrun in ms). A third
+ * argument "phases" switches on the phase timing of the MCTSEngine agents, to measure its cost.
+ */
+public class EngineBenchmark {
+
+    public static void main(final String[] args) throws IOException {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Reversi.lud");
+//        games.add("Hnefatafl.lud");
+
+        final String[] agentNames = {"MCTS_Vanilla", "MCTS_Vanilla_Tuned", "MCTS_MAST",
+                "MCTS_MAST_Tuned", "MCTS_NSTv2", "MCTS_NSTv2_Tuned", "MCTS_Various_Enhancements"};
+        final int numPositions = 10;
+        final int maxRandomPlies = 30;
+        final int iterationsPerSearch = 5000;
+        final double secondsPerSearch = 0.5;
+        final int numWarmupSearches = 5;
+        final String onlyAgent = (args.length > 0 && !args[0].equals("all")) ? args[0] : null;
+        final PrintWriter results = (args.length > 1) ? new PrintWriter(new FileWriter(args[1], true)) : null;
+        final boolean phaseTiming = args.length > 2 && args[2].equals("phases");
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+            final ArrayList<Context> positions = samplePositions(game, numPositions, maxRandomPlies, 12345L);
+
+            for (String agentName : agentNames) {
+                if (onlyAgent != null && !onlyAgent.equals(agentName))
+                    continue;
+                final AI agent = createAgent(agentName);
+                if (agent instanceof MCTSEngine)
+                    ((MCTSEngine) agent).setPhaseTiming(phaseTiming);
+
+                // let the JIT compile the search before measuring it
+                for (int i = 0; i < numWarmupSearches; ++i) {
+                    final Context position = positions.get(i % positions.size());
+                    agent.initAI(game, position.state().mover());
+                    agent.selectAction(game, new Context(position), -1.0, iterationsPerSearch, -1);
+                }
+
+                long nanos = 0L;
+                for (Context position : positions) {
+                    agent.initAI(game, position.state().mover());
+                    final Context searchContext = new Context(position);
+                    final long startTime = System.nanoTime();
+                    agent.selectAction(game, searchContext, -1.0, iterationsPerSearch, -1);
+                    nanos += System.nanoTime() - startTime;
+                }
+
+                final double iterationsPerSecond = (double) iterationsPerSearch * positions.size() * 1.0e9 / nanos;
+
+                // the same searches on a time budget, as agents run in a match
+                long timedIterations = 0L;
+                long timedNanos = 0L;
+                long overrunNanos = 0L;
+                for (Context position : positions) {
+                    agent.initAI(game, position.state().mover());
+                    final Context searchContext = new Context(position);
+                    final long startTime = System.nanoTime();
+                    agent.selectAction(game, searchContext, secondsPerSearch, -1, -1);
+                    final long searchNanos = System.nanoTime() - startTime;
+                    timedNanos += searchNanos;
+                    overrunNanos += Math.max(0L, searchNanos - (long) (secondsPerSearch * 1.0e9));
+                    if (agent instanceof Group12AI)
+                        timedIterations += ((Group12AI) agent).getIterations();
+                }
+                final double timedIterationsPerSecond = (agent instanceof Group12AI) ? timedIterations * 1.0e9 / timedNanos : Double.NaN;
+                final double averageOverrunMillis = overrunNanos / 1.0e6 / positions.size();
+
+                System.out.println(games.get(g) + ": " + agentName +
+                        "\niterations per second (" + iterationsPerSearch + " iterations per search) = " + iterationsPerSecond +
+                        "\niterations per second (" + secondsPerSearch + "s per search) = " + timedIterationsPerSecond +
+                        "\naverage deadline overrun (" + secondsPerSearch + "s per search) = " + averageOverrunMillis + " ms\n");
+                if (results != null) {
+                    final String label = phaseTiming ? agentName + " (phases)" : agentName;
+                    results.println(games.get(g) + "," + label + "," + iterationsPerSearch + " iterations," + iterationsPerSecond + ",");
+                    results.println(games.get(g) + "," + label + "," + secondsPerSearch + "s," + timedIterationsPerSecond + "," + averageOverrunMillis);
+                    results.flush();
+                }
+            }
+        }
+        if (results != null)
+            results.close();
+    }
+
+    /**
+     * @return Positions reached by playing a random number of uniformly random moves from the start
+     */
+    private static ArrayList<Context> samplePositions(final Game game, final int numPositions,
+                                                      final int maxRandomPlies, final long seed) {
+        final Random random = new Random(seed);
+        final ArrayList<Context> positions = new ArrayList<Context>();
+        while (positions.size() < numPositions) {
+            final Context context = new Context(game, new Trial(game));
+            game.start(context);
+            final int numPlies = random.nextInt(maxRandomPlies + 1);
+            for (int i = 0; i < numPlies && !context.trial().over(); ++i) {
+                final FastArrayList<Move> legalMoves = game.moves(context).moves();
+                game.apply(context, legalMoves.get(random.nextInt(legalMoves.size())));
+            }
+            if (!context.trial().over())
+                positions.add(context);
+        }
+        return positions;
+    }
+
+    private static AI createAgent(final String agentName) {
+        switch (agentName) {
+            case "MCTS_Vanilla": return new MCTS_Vanilla();
+            case "MCTS_Vanilla_Tuned": return new MCTS_Vanilla_Tuned();
+            case "MCTS_MAST": return new MCTS_MAST();
+            case "MCTS_MAST_Tuned": return new MCTS_MAST_Tuned();
+            case "MCTS_NSTv2": return new MCTS_NSTv2();
+            case "MCTS_NSTv2_Tuned": return new MCTS_NSTv2_Tuned();
+            case "MCTS_Various_Enhancements": return new MCTS_Various_Enhancements();
+            default: throw new IllegalArgumentException("Unknown agent: " + agentName);
+        }
+    }
+
+}
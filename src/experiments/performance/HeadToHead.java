@@ -0,0 +1,120 @@
+package experiments.performance;
+
+import game.Game;
+import util.AI;
+import util.Context;
+import util.Move;
+import util.Trial;
+
+import java.util.function.Supplier;
+
+/**
+ * Match between a tested agent and an opponent, as played by the experiments of this
+ * package. The tested agent plays first in even games and second in odd games, and both
+ * agents get a fixed time per move. After every search, a callback gets the agent that
+ * made it, so an experiment only has to configure its agents and read their statistics.
+ */
+final class HeadToHead {
+
+    /**
+     * Called after every search, before its move is applied
+     */
+    interface MoveCallback<A extends AI> {
+        /**
+         * @param agent Agent that searched
+         * @param tested True if it is the tested agent, false if it is the opponent
+         * @param moveInGame Number of moves this agent made before in the current game
+         */
+        void afterMove(A agent, boolean tested, int moveInGame);
+    }
+
+    /**
+     * Outcome of a match, from the point of view of the tested agent
+     */
+    static final class Result {
+        final int numGames;
+        int wins = 0;
+        int draws = 0;
+        /** Moves made by the tested agent and by the opponent over all games */
+        int testedMoves = 0;
+        int opponentMoves = 0;
+
+        private Result(final int numGames) {
+            this.numGames = numGames;
+        }
+
+        /**
+         * @return Wins plus half the draws of the tested agent, per game
+         */
+        double winRate() {
+            return (wins + 0.5 * draws) / numGames;
+        }
+    }
+
+    private HeadToHead() {
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Plays a match of two-player games. Every agent is created once and initialised for
+     * every game, and closed after it, which also stops any search left running.
+     *
+     * @param game
+     * @param testedAgent Creates the tested agent
+     * @param opponentAgent Creates its opponent
+     * @param numGames
+     * @param secondsPerMove
+     * @param callback Called after every search, null if the experiment only needs the win rate
+     * @return Outcome of the match
+     */
+    static <A extends AI> Result play(final Game game, final Supplier<? extends A> testedAgent,
+                                      final Supplier<? extends A> opponentAgent, final int numGames,
+                                      final double secondsPerMove, final MoveCallback<A> callback) {
+        final A tested = testedAgent.get();
+        final A opponent = opponentAgent.get();
+        final Context context = new Context(game, new Trial(game));
+        final Result result = new Result(numGames);
+
+        for (int i = 0; i < numGames; ++i) {
+            // the tested agent plays first in even games and second in odd games
+            final int testedPlayer = (i % 2 == 0) ? 1 : 2;
+            final AI[] agents = new AI[3];
+            agents[testedPlayer] = tested;
+            agents[3 - testedPlayer] = opponent;
+
+            game.start(context);
+            agents[1].initAI(game, 1);
+            agents[2].initAI(game, 2);
+            int testedMovesInGame = 0;
+            int opponentMovesInGame = 0;
+
+            while (!context.trial().over()) {
+                final int mover = context.state().mover();
+                final Move move = agents[mover].selectAction(game, new Context(context), secondsPerMove, -1, -1);
+
+                if (mover == testedPlayer) {
+                    result.testedMoves++;
+                    if (callback != null)
+                        callback.afterMove(tested, true, testedMovesInGame);
+                    testedMovesInGame++;
+                } else {
+                    result.opponentMoves++;
+                    if (callback != null)
+                        callback.afterMove(opponent, false, opponentMovesInGame);
+                    opponentMovesInGame++;
+                }
+
+                game.apply(context, move);
+            }
+            tested.closeAI();
+            opponent.closeAI();
+
+            if (context.trial().status().winner() == testedPlayer)
+                result.wins++;
+            else if (context.trial().status().winner() == 0)
+                result.draws++;
+        }
+        return result;
+    }
+}
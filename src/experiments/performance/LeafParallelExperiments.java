@@ -0,0 +1,88 @@
+package experiments.performance;
+
+import game.Game;
+import main.collections.FastArrayList;
+import mcts.MCTS_Vanilla;
+import util.Context;
+import util.GameLoader;
+import util.Move;
+import util.Trial;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Scaling table of leaf-parallel MCTS_Vanilla: iterations and playouts per second for
+ * 1..N playouts per selected node, measured on the same set of positions for every count.
+ */
+public class LeafParallelExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Hnefatafl.lud");
+        games.add("Reversi.lud");
+
+        final int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final double secondsPerMove = 1.0;
+        final int numPositions = 10;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+            final ArrayList<Context> positions = samplePositions(game, numPositions, 42L);
+
+            System.out.println(games.get(g));
+            System.out.println("playouts per leaf\titerations/s\tplayouts/s\tspeedup");
+
+            // powers of two up to, and including, the maximum number of threads
+            final ArrayList<Integer> threadCounts = new ArrayList<>();
+            for (int threads = 1; threads < maxThreads; threads *= 2) {
+                threadCounts.add(threads);
+            }
+            threadCounts.add(maxThreads);
+
+            double baseline = 0.0;
+            for (int threads : threadCounts) {
+                final MCTS_Vanilla agent = new MCTS_Vanilla();
+                agent.setLeafParallelism(threads);
+                agent.initAI(game, 1);
+
+                double iterationsPerSecond = 0.0;
+                double playoutsPerSecond = 0.0;
+                for (Context position : positions) {
+                    agent.selectAction(game, new Context(position), secondsPerMove, -1, -1);
+                    iterationsPerSecond += agent.getIterationsPerSecond();
+                    playoutsPerSecond += agent.getIterationsPerSecond() * agent.getLastNumPlayouts() / Math.max(1, agent.getIterations());
+                }
+                iterationsPerSecond /= positions.size();
+                playoutsPerSecond /= positions.size();
+                if (threads == 1)
+                    baseline = playoutsPerSecond;
+
+                System.out.println(threads + "\t" + (long) iterationsPerSecond + "\t" + (long) playoutsPerSecond + "\t" +
+                        String.format("%.2f", playoutsPerSecond / baseline));
+            }
+            System.out.println();
+        }
+    }
+
+    /**
+     * Positions reached by random play from the initial state, same for every run with the same seed
+     */
+    private static ArrayList<Context> samplePositions(final Game game, final int numPositions, final long seed) {
+        final Random random = new Random(seed);
+        final ArrayList<Context> positions = new ArrayList<>();
+        while (positions.size() < numPositions) {
+            final Context context = new Context(game, new Trial(game));
+            game.start(context);
+            final int numPlies = random.nextInt(20);
+            for (int i = 0; i < numPlies && !context.trial().over(); i++) {
+                final FastArrayList<Move> legalMoves = game.moves(context).moves();
+                game.apply(context, legalMoves.get(random.nextInt(legalMoves.size())));
+            }
+            if (!context.trial().over())
+                positions.add(context);
+        }
+        return positions;
+    }
+
+}
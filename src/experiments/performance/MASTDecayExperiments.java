@@ -0,0 +1,72 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_MAST;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_MAST keeping its MAST statistics between searches, for several decay factors,
+ * against MCTS_MAST starting every search cold, alternating seats, at 0.1 seconds per move.
+ * Prints the win rate of the warm agent, its iterations per second, and the size of its
+ * MAST table after every tenth move of its games, averaged over the games.
+ */
+public class MASTDecayExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Knightthrough.lud");
+        games.add("Reversi.lud");
+
+        final double[] decays = {0.25, 0.5, 0.9, 1.0};
+        final double seconds = 0.1;
+        final int numGames = 20;
+        final int sizeInterval = 10;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            for (double decay : decays) {
+                // iterations per second of the warm agent and of the cold one
+                final double[] iterationsPerSecond = new double[2];
+                // table sizes of the warm agent, indexed by its move number / sizeInterval
+                final ArrayList<long[]> tableSizes = new ArrayList<long[]>();
+
+                final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                    final MCTS_MAST warm = new MCTS_MAST();
+                    warm.setDecay(decay);
+                    return warm;
+                }, () -> {
+                    final MCTS_MAST cold = new MCTS_MAST();
+                    cold.setDecay(0.0);
+                    return cold;
+                }, numGames, seconds, (agent, tested, moveInGame) -> {
+                    iterationsPerSecond[tested ? 0 : 1] += agent.getIterationsPerSecond();
+                    if (tested && moveInGame % sizeInterval == 0) {
+                        final int index = moveInGame / sizeInterval;
+                        if (index == tableSizes.size())
+                            tableSizes.add(new long[2]);
+                        tableSizes.get(index)[0] += agent.getMASTTableSize();
+                        tableSizes.get(index)[1]++;
+                    }
+                });
+
+                final StringBuilder sizes = new StringBuilder();
+                for (int index = 0; index < tableSizes.size(); index++) {
+                    final long[] size = tableSizes.get(index);
+                    sizes.append("\n  after move ").append(index * sizeInterval + 1).append(": ")
+                            .append((double) size[0] / size[1]);
+                }
+
+                System.out.println(games.get(g) + ": MAST decay " + decay + " against cold MAST, " + seconds + "s per move" +
+                        "\nwarm win rate = " + result.winRate() +
+                        "\naverage iterations per second (warm) = " + iterationsPerSecond[0] / Math.max(1, result.testedMoves) +
+                        "\naverage iterations per second (cold) = " + iterationsPerSecond[1] / Math.max(1, result.opponentMoves) +
+                        "\naverage MAST table size (warm):" + sizes + "\n");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package experiments.performance;
+
+import game.Game;
+import main.collections.FastArrayList;
+import mcts.MoveKeys;
+import util.Context;
+import util.GameLoader;
+import util.Move;
+import util.Trial;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Cost of hashing the legal moves of a playout ply: Move.hashCode(), which MAST and NST were
+ * keyed by before MoveKeys, against MoveKeys.keys() on every new legal move list, as in a
+ * playout, and on the same list again, as when a node is expanded several times.
+ * Prints nanoseconds per move for each, on the legal move lists of random playouts.
+ */
+public class MoveKeyBenchmark {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Knightthrough.lud");
+
+        final int numLists = 20000;
+        final int numRounds = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+            final ArrayList<FastArrayList<Move>> lists = sampleMoveLists(game, numLists, 12345L);
+            long numMoves = 0L;
+            for (FastArrayList<Move> moves : lists) {
+                numMoves += moves.size();
+            }
+
+            final MoveKeys moveKeys = new MoveKeys();
+            long hashCodeNanos = 0L;
+            long newListNanos = 0L;
+            long sameListNanos = 0L;
+            long checksum = 0L;
+            // the first round warms up the JIT and is not counted
+            for (int round = 0; round <= numRounds; round++) {
+                long startTime = System.nanoTime();
+                for (FastArrayList<Move> moves : lists) {
+                    for (int m = 0; m < moves.size(); m++) {
+                        checksum += moves.get(m).hashCode();
+                    }
+                }
+                final long hashCodeTime = System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                for (FastArrayList<Move> moves : lists) {
+                    checksum += moveKeys.keys(moves)[0];
+                }
+                final long newListTime = System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                for (FastArrayList<Move> moves : lists) {
+                    moveKeys.keys(moves);
+                    checksum += moveKeys.keys(moves)[0];
+                }
+                // the second call of each pair is the one on a list keyed before
+                final long sameListTime = System.nanoTime() - startTime - newListTime;
+
+                if (round > 0) {
+                    hashCodeNanos += hashCodeTime;
+                    newListNanos += newListTime;
+                    sameListNanos += sameListTime;
+                }
+            }
+
+            final double numHashed = (double) numMoves * numRounds;
+            System.out.println(games.get(g) + ": " + numLists + " legal move lists, " +
+                    (double) numMoves / numLists + " moves per list" +
+                    "\nMove.hashCode() ns per move = " + hashCodeNanos / numHashed +
+                    "\nMoveKeys.keys() on a new list, ns per move = " + newListNanos / numHashed +
+                    "\nMoveKeys.keys() on the same list again, ns per move = " + sameListNanos / numHashed +
+                    "\n(checksum " + checksum + ")\n");
+        }
+    }
+
+    /**
+     * @return Legal move lists of the plies of uniformly random playouts from the start
+     */
+    private static ArrayList<FastArrayList<Move>> sampleMoveLists(final Game game, final int numLists, final long seed) {
+        final Random random = new Random(seed);
+        final ArrayList<FastArrayList<Move>> lists = new ArrayList<FastArrayList<Move>>();
+        while (lists.size() < numLists) {
+            final Context context = new Context(game, new Trial(game));
+            game.start(context);
+            while (!context.trial().over() && lists.size() < numLists) {
+                final FastArrayList<Move> legalMoves = game.moves(context).moves();
+                lists.add(legalMoves);
+                game.apply(context, legalMoves.get(random.nextInt(legalMoves.size())));
+            }
+        }
+        return lists;
+    }
+
+}
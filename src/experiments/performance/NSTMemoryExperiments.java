@@ -0,0 +1,73 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_NSTv2;
+import mcts.NGramTable;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_NSTv2 with bounded N-gram statistics against MCTS_NSTv2 with unbounded ones,
+ * alternating seats, for several bounds. Prints the win rate of the bounded agent, the
+ * iterations per second of both agents and, per search, the N-gram table size, occupancy,
+ * evictions and lookup hit rate of the bounded agent and the table size of the unbounded one.
+ */
+public class NSTMemoryExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Hnefatafl.lud");
+        games.add("Tic-Tac-Chess.lud");
+
+        final int[] maxEntries = {1 << 14, 1 << 16, 1 << 18};
+        final double seconds = 1.0;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            for (int bound : maxEntries) {
+                // statistics of the bounded agent at index 0 and of the unbounded one at index 1
+                final double[] iterationsPerSecond = new double[2];
+                final long[] tableSizes = new long[2];
+                // occupancy and lookup hit rate of the bounded agent
+                final double[] boundedRates = new double[2];
+                final long[] evictions = new long[1];
+
+                final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                    final MCTS_NSTv2 bounded = new MCTS_NSTv2();
+                    bounded.setMaxEntries(bound);
+                    return bounded;
+                }, () -> {
+                    final MCTS_NSTv2 unbounded = new MCTS_NSTv2();
+                    unbounded.setMaxEntries(-1);
+                    return unbounded;
+                }, numGames, seconds, (agent, tested, moveInGame) -> {
+                    final int a = tested ? 0 : 1;
+                    final NGramTable grams = agent.getNGramTable();
+                    iterationsPerSecond[a] += agent.getIterationsPerSecond();
+                    tableSizes[a] += grams.size();
+                    if (tested) {
+                        boundedRates[0] += grams.occupancy();
+                        boundedRates[1] += grams.hitRate();
+                        evictions[0] += grams.numEvictions();
+                    }
+                });
+
+                final int boundedMoves = Math.max(1, result.testedMoves);
+                final int unboundedMoves = Math.max(1, result.opponentMoves);
+                System.out.println(games.get(g) + ": NST bounded to " + bound + " N-grams, " + seconds + "s per move" +
+                        "\nbounded win rate = " + result.winRate() +
+                        "\naverage iterations per second (bounded) = " + iterationsPerSecond[0] / boundedMoves +
+                        "\naverage iterations per second (unbounded) = " + iterationsPerSecond[1] / unboundedMoves +
+                        "\naverage table size (bounded) = " + (double) tableSizes[0] / boundedMoves +
+                        "\naverage table size (unbounded) = " + (double) tableSizes[1] / unboundedMoves +
+                        "\naverage occupancy (bounded) = " + boundedRates[0] / boundedMoves +
+                        "\naverage evictions per search (bounded) = " + (double) evictions[0] / boundedMoves +
+                        "\naverage lookup hit rate (bounded) = " + boundedRates[1] / boundedMoves + "\n");
+            }
+        }
+    }
+
+}
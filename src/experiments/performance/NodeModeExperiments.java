@@ -0,0 +1,110 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_MAST;
+import mcts.MCTS_NSTv2;
+import mcts.MCTS_Vanilla;
+import util.AI;
+import util.Context;
+import util.GameLoader;
+import util.Move;
+import util.Trial;
+
+import java.util.ArrayList;
+
+/**
+ * Compares nodes that store their own Context with stateless nodes that replay their
+ * path from the root, reporting memory per node and iterations per second per game.
+ */
+public class NodeModeExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Hnefatafl.lud");
+        games.add("Havannah.lud");
+//        games.add("Breakthrough.lud");
+
+        final double secondsPerMove = 1.0;
+        final int numMoves = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+            final long contextBytes = measureContextBytes(game);
+            System.out.println(games.get(g) + ": bytes per Context copy = " + contextBytes + "\n");
+
+            for (int mode = 0; mode < 2; mode++) {
+                final boolean stateless = (mode == 1);
+
+                final MCTS_Vanilla vanilla = new MCTS_Vanilla();
+                vanilla.setStatelessNodes(stateless);
+                final MCTS_MAST mast = new MCTS_MAST();
+                mast.setStatelessNodes(stateless);
+                final MCTS_NSTv2 nst = new MCTS_NSTv2();
+                nst.setStatelessNodes(stateless);
+
+                final AI[] agents = {vanilla, mast, nst};
+                for (AI agent : agents) {
+                    double iterationsPerSecond = 0.0;
+                    long nodes = 0L;
+                    long bytesPerNode = 0L;
+
+                    // the agent plays both sides of the first moves of a game
+                    Context context = new Context(game, new Trial(game));
+                    game.start(context);
+                    agent.initAI(game, 1);
+                    int searches = 0;
+                    while (searches < numMoves && !context.trial().over()) {
+                        final Move move = agent.selectAction(game, new Context(context), secondsPerMove, -1, -1);
+                        if (agent instanceof MCTS_Vanilla) {
+                            iterationsPerSecond += vanilla.getIterationsPerSecond();
+                            nodes += vanilla.getLastNumNodes();
+                            bytesPerNode = vanilla.getBytesPerNode();
+                        } else if (agent instanceof MCTS_MAST) {
+                            iterationsPerSecond += mast.getIterationsPerSecond();
+                            nodes += mast.getLastNumNodes();
+                            bytesPerNode = mast.getBytesPerNode();
+                        } else {
+                            iterationsPerSecond += nst.getIterationsPerSecond();
+                            nodes += nst.getLastNumNodes();
+                            bytesPerNode = nst.getBytesPerNode();
+                        }
+                        searches++;
+                        game.apply(context, move);
+                    }
+
+                    // stored contexts dominate the memory of a node
+                    if (!stateless)
+                        bytesPerNode += contextBytes;
+
+                    System.out.println(games.get(g) + ": " + agent.friendlyName + (stateless ? " (stateless)" : " (stored context)") +
+                            "\naverage iterations per second = " + iterationsPerSecond / searches +
+                            "\naverage nodes per search = " + nodes / searches +
+                            "\nbytes per node = " + bytesPerNode + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the retained size of one Context copy of the initial position of the given game
+     */
+    private static long measureContextBytes(final Game game) {
+        final int numCopies = 200;
+        final Context context = new Context(game, new Trial(game));
+        game.start(context);
+
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        final long before = runtime.totalMemory() - runtime.freeMemory();
+        final Context[] copies = new Context[numCopies];
+        for (int i = 0; i < numCopies; i++) {
+            copies[i] = new Context(context);
+        }
+        System.gc();
+        final long after = runtime.totalMemory() - runtime.freeMemory();
+
+        // keep the copies reachable until after the measurement
+        return (copies[numCopies - 1] != null) ? Math.max(0L, (after - before) / numCopies) : 0L;
+    }
+
+}
@@ -0,0 +1,106 @@
+package experiments.performance;
+
+import game.Game;
+import main.collections.FastArrayList;
+import mcts.MASTPolicy;
+import mcts.NSTPolicy;
+import mcts.PlayoutPolicy;
+import util.Context;
+import util.GameLoader;
+import util.Move;
+import util.Trial;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Playouts per second of the MAST and NST playout policies (with the parameters of
+ * MCTS_MAST and MCTS_NSTv2) on fixed positions. Also prints the average playout length
+ * and the win rate of player 1, which must not change when only the speed of a policy
+ * is changed.
+ */
+public class PlayoutBenchmark {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Knightthrough.lud");
+        games.add("Reversi.lud");
+
+        final String[] policyNames = {"Random", "MAST", "NST"};
+        final int numPositions = 10;
+        final int maxRandomPlies = 30;
+        final int playoutsPerPosition = 2000;
+        final int numWarmupPlayouts = 2000;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+            final ArrayList<Context> positions = samplePositions(game, numPositions, maxRandomPlies, 12345L);
+
+            for (String policyName : policyNames) {
+                final PlayoutPolicy policy = createPolicy(policyName);
+
+                // let the JIT compile the playouts before measuring them
+                policy.startSearch();
+                for (int i = 0; i < numWarmupPlayouts; ++i) {
+                    policy.playout(new Context(positions.get(i % positions.size())), -1, null);
+                }
+
+                long nanos = 0L;
+                long numActions = 0L;
+                int numPlayouts = 0;
+                double player1Wins = 0.0;
+                for (Context position : positions) {
+                    // the statistics of MAST and NST grow over a search, as they would in one
+                    policy.startSearch();
+                    for (int i = 0; i < playoutsPerPosition; ++i) {
+                        final Context playoutContext = new Context(position);
+                        final int numMovesBefore = playoutContext.trial().numMoves();
+                        final long startTime = System.nanoTime();
+                        final double[] utilities = policy.playout(playoutContext, -1, null);
+                        nanos += System.nanoTime() - startTime;
+                        numActions += playoutContext.trial().numMoves() - numMovesBefore;
+                        numPlayouts++;
+                        player1Wins += (utilities[1] + 1.0) / 2.0;
+                    }
+                }
+
+                System.out.println(games.get(g) + ": " + policyName +
+                        "\nplayouts per second = " + numPlayouts * 1.0e9 / nanos +
+                        "\naverage playout length = " + (double) numActions / numPlayouts +
+                        "\nplayer 1 win rate = " + player1Wins / numPlayouts + "\n");
+            }
+        }
+    }
+
+    /**
+     * @return Positions reached by playing a random number of uniformly random moves from the start
+     */
+    private static ArrayList<Context> samplePositions(final Game game, final int numPositions,
+                                                      final int maxRandomPlies, final long seed) {
+        final Random random = new Random(seed);
+        final ArrayList<Context> positions = new ArrayList<Context>();
+        while (positions.size() < numPositions) {
+            final Context context = new Context(game, new Trial(game));
+            game.start(context);
+            final int numPlies = random.nextInt(maxRandomPlies + 1);
+            for (int i = 0; i < numPlies && !context.trial().over(); ++i) {
+                final FastArrayList<Move> legalMoves = game.moves(context).moves();
+                game.apply(context, legalMoves.get(random.nextInt(legalMoves.size())));
+            }
+            if (!context.trial().over())
+                positions.add(context);
+        }
+        return positions;
+    }
+
+    private static PlayoutPolicy createPolicy(final String policyName) {
+        switch (policyName) {
+            case "Random": return new PlayoutPolicy.Random();
+            case "MAST": return new MASTPolicy(0.1);
+            case "NST": return new NSTPolicy(0.1, 3, 7);
+            default: throw new IllegalArgumentException("Unknown policy: " + policyName);
+        }
+    }
+
+}
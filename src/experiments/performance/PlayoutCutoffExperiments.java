@@ -0,0 +1,64 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_Vanilla with playouts cut off after a number of moves against MCTS_Vanilla
+ * playing every game out, alternating seats, for several cutoffs. Prints the win rate of the
+ * cut off agent, the iterations per second and the average and 90th percentile playout
+ * length of both agents.
+ */
+public class PlayoutCutoffExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Hnefatafl.lud");
+        games.add("Reversi.lud");
+
+        final int[] cutoffs = {5, 10, 20, 40};
+        final double seconds = 0.5;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            for (int cutoff : cutoffs) {
+                // statistics of the cut off agent at index 0 and of the full one at index 1
+                final double[] iterationsPerSecond = new double[2];
+                final double[] playoutLength = new double[2];
+                final double[] playoutLength90 = new double[2];
+                final int[] numCutoffPlayouts = new int[1];
+
+                final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                    final MCTS_Vanilla cutOff = new MCTS_Vanilla();
+                    cutOff.setPlayoutCutoff(cutoff);
+                    return cutOff;
+                }, MCTS_Vanilla::new, numGames, seconds, (agent, tested, moveInGame) -> {
+                    final int a = tested ? 0 : 1;
+                    iterationsPerSecond[a] += agent.getIterationsPerSecond();
+                    playoutLength[a] += agent.getLastAveragePlayoutLength();
+                    playoutLength90[a] += agent.getLastPlayoutLengthPercentile(0.9);
+                    if (tested)
+                        numCutoffPlayouts[0] += agent.getLastNumCutoffPlayouts();
+                });
+
+                final int cutOffMoves = Math.max(1, result.testedMoves);
+                final int fullMoves = Math.max(1, result.opponentMoves);
+                System.out.println(games.get(g) + ": playouts cut off after " + cutoff + " moves, " + seconds + "s per move" +
+                        "\ncutoff win rate = " + result.winRate() +
+                        "\naverage iterations per second (cutoff) = " + iterationsPerSecond[0] / cutOffMoves +
+                        "\naverage iterations per second (full) = " + iterationsPerSecond[1] / fullMoves +
+                        "\naverage playout length (cutoff) = " + playoutLength[0] / cutOffMoves +
+                        "\naverage playout length (full) = " + playoutLength[1] / fullMoves +
+                        "\naverage 90th percentile playout length (cutoff) = " + playoutLength90[0] / cutOffMoves +
+                        "\naverage 90th percentile playout length (full) = " + playoutLength90[1] / fullMoves +
+                        "\naverage cut off playouts per move = " + (double) numCutoffPlayouts[0] / cutOffMoves + "\n");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_Vanilla with pondering against MCTS_Vanilla with only tree reuse, alternating
+ * seats. Prints the win rate of the pondering agent and, per move, the iterations it
+ * pondered and how many of them were reused or discarded.
+ */
+public class PonderingExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Knightthrough.lud");
+        games.add("Reversi.lud");
+
+        final double seconds = 0.5;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            // pondered, reused and discarded iterations
+            final long[] ponderIterations = new long[3];
+            // iterations per second of the pondering agent and of the reusing one
+            final double[] iterationsPerSecond = new double[2];
+
+            // the match closes both agents after every game, which stops the ponder thread of the last move
+            final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                final MCTS_Vanilla ponderer = new MCTS_Vanilla();
+                ponderer.setPondering(true);
+                return ponderer;
+            }, () -> {
+                final MCTS_Vanilla reuser = new MCTS_Vanilla();
+                reuser.setTreeReuse(true);
+                return reuser;
+            }, numGames, seconds, (agent, tested, moveInGame) -> {
+                if (tested) {
+                    ponderIterations[0] += agent.getLastPonderIterations();
+                    ponderIterations[1] += agent.getLastPonderReusedIterations();
+                    ponderIterations[2] += agent.getLastPonderDiscardedIterations();
+                }
+                iterationsPerSecond[tested ? 0 : 1] += agent.getIterationsPerSecond();
+            });
+
+            final int ponderMoves = Math.max(1, result.testedMoves);
+            System.out.println(games.get(g) + ": " + seconds + "s per move" +
+                    "\npondering win rate = " + result.winRate() +
+                    "\naverage pondered iterations per move = " + (double) ponderIterations[0] / ponderMoves +
+                    "\naverage reused pondered iterations per move = " + (double) ponderIterations[1] / ponderMoves +
+                    "\naverage discarded pondered iterations per move = " + (double) ponderIterations[2] / ponderMoves +
+                    "\naverage iterations per second (pondering) = " + iterationsPerSecond[0] / ponderMoves +
+                    "\naverage iterations per second (tree reuse) = " + iterationsPerSecond[1] / Math.max(1, result.opponentMoves) + "\n");
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_Vanilla with progressive bias from the game heuristics against MCTS_Vanilla
+ * without it, alternating seats, at several times per move. Prints the win rate of the
+ * biased agent and the iterations per second of both, as the heuristic is only evaluated
+ * when a node is created.
+ */
+public class ProgressiveBiasExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Knightthrough.lud");
+        games.add("Reversi.lud");
+
+        final double[] secondsPerMove = {0.1, 0.5, 1.0};
+        final double biasWeight = 1.0;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            for (double seconds : secondsPerMove) {
+                // iterations per second of the biased agent and of the plain one
+                final double[] iterationsPerSecond = new double[2];
+
+                final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                    final MCTS_Vanilla biased = new MCTS_Vanilla();
+                    biased.setProgressiveBias(true, biasWeight);
+                    return biased;
+                }, MCTS_Vanilla::new, numGames, seconds, (agent, tested, moveInGame) -> {
+                    iterationsPerSecond[tested ? 0 : 1] += agent.getIterationsPerSecond();
+                });
+
+                System.out.println(games.get(g) + ": " + seconds + "s per move" +
+                        "\nprogressive bias win rate = " + result.winRate() +
+                        "\naverage iterations per second (biased) = " + iterationsPerSecond[0] / Math.max(1, result.testedMoves) +
+                        "\naverage iterations per second (plain) = " + iterationsPerSecond[1] / Math.max(1, result.opponentMoves) + "\n");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTSEngine;
+import mcts.MCTS_MAST;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS agents with progressive widening against MCTS_Vanilla without it, alternating
+ * seats, once with the random prior of MCTS_Vanilla and once with the MAST prior of MCTS_MAST.
+ * Prints the win rate of the widening agent and the average nodes per search of both.
+ */
+public class ProgressiveWideningExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Havannah.lud");
+        games.add("Hex.lud");
+        games.add("Amazons.lud");
+
+        final double secondsPerMove = 1.0;
+        final int numGames = 20;
+        final double wideningConstant = 1.0;
+        final double wideningExponent = 0.5;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            for (String prior : new String[]{"random", "MAST"}) {
+                // nodes per search of the widening agent and of the plain one
+                final long[] numNodes = new long[2];
+
+                final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                    final MCTSEngine widening = prior.equals("MAST") ? new MCTS_MAST() : new MCTS_Vanilla();
+                    widening.setProgressiveWidening(true);
+                    widening.setWideningParameters(wideningConstant, wideningExponent);
+                    return widening;
+                }, MCTS_Vanilla::new, numGames, secondsPerMove, (agent, tested, moveInGame) -> {
+                    numNodes[tested ? 0 : 1] += agent.getLastNumNodes();
+                });
+
+                System.out.println(games.get(g) + ": progressive widening, " + prior + " prior" +
+                        "\nwin rate = " + result.winRate() +
+                        "\naverage nodes per search (widening) = " + numNodes[0] / Math.max(1, result.testedMoves) +
+                        "\naverage nodes per search (plain) = " + numNodes[1] / Math.max(1, result.opponentMoves) + "\n");
+            }
+        }
+    }
+
+}
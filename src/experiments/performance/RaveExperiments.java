@@ -0,0 +1,47 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_Vanilla with RAVE against MCTS_Vanilla without it, alternating seats.
+ * Prints the win rate of RAVE and the iterations per second of both, which shows what
+ * recording the playout moves and updating the AMAF statistics costs.
+ */
+public class RaveExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Hex.lud");
+        games.add("Havannah.lud");
+        games.add("Breakthrough.lud");
+
+        final double secondsPerMove = 1.0;
+        final double raveEquivalence = 1000.0;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            // iterations per second of RAVE and of the plain agent
+            final double[] iterationsPerSecond = new double[2];
+
+            final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                final MCTS_Vanilla rave = new MCTS_Vanilla();
+                rave.setRave(true, raveEquivalence);
+                return rave;
+            }, MCTS_Vanilla::new, numGames, secondsPerMove, (agent, tested, moveInGame) -> {
+                iterationsPerSecond[tested ? 0 : 1] += agent.getIterationsPerSecond();
+            });
+
+            System.out.println(games.get(g) +
+                    "\nRAVE win rate = " + result.winRate() +
+                    "\naverage iterations per second (RAVE) = " + iterationsPerSecond[0] / Math.max(1, result.testedMoves) +
+                    "\naverage iterations per second (plain) = " + iterationsPerSecond[1] / Math.max(1, result.opponentMoves) + "\n");
+        }
+    }
+
+}
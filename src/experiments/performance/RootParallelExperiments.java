@@ -0,0 +1,101 @@
+package experiments.performance;
+
+import game.Game;
+import main.collections.FastArrayList;
+import mcts.MCTS_Vanilla;
+import util.Context;
+import util.GameLoader;
+import util.Move;
+import util.Trial;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Scaling table of root-parallel and tree-parallel MCTS_Vanilla: iterations per second
+ * for 1..N workers, measured on the same set of positions for every worker count.
+ * Tree-parallel rows also report the contention counters of the shared tree.
+ */
+public class RootParallelExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Reversi.lud");
+        games.add("Hex.lud");
+
+        final int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final double secondsPerMove = 1.0;
+        final int numPositions = 10;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+            final ArrayList<Context> positions = samplePositions(game, numPositions, 42L);
+
+            System.out.println(games.get(g));
+            System.out.println("mode\tthreads\titerations/s\tspeedup\titerations/s per worker\tCAS retries\tVL collisions\texpansion waits");
+
+            // powers of two up to, and including, the maximum number of threads
+            final ArrayList<Integer> threadCounts = new ArrayList<>();
+            for (int threads = 1; threads < maxThreads; threads *= 2) {
+                threadCounts.add(threads);
+            }
+            threadCounts.add(maxThreads);
+
+            for (boolean treeParallel : new boolean[]{false, true}) {
+                double baseline = 0.0;
+                for (int threads : threadCounts) {
+                    final MCTS_Vanilla agent = new MCTS_Vanilla();
+                    if (treeParallel)
+                        agent.setTreeParallelism(threads);
+                    else
+                        agent.setRootParallelism(threads);
+                    agent.initAI(game, 1);
+
+                    double iterationsPerSecond = 0.0;
+                    long casRetries = 0;
+                    long collisions = 0;
+                    long expansionWaits = 0;
+                    for (Context position : positions) {
+                        agent.selectAction(game, new Context(position), secondsPerMove, -1, -1);
+                        iterationsPerSecond += agent.getIterationsPerSecond();
+                        casRetries += agent.getCasRetries();
+                        collisions += agent.getVirtualLossCollisions();
+                        expansionWaits += agent.getExpansionWaits();
+                    }
+                    iterationsPerSecond /= positions.size();
+                    if (threads == 1)
+                        baseline = iterationsPerSecond;
+
+                    System.out.println((treeParallel ? "tree" : "root") + "\t" + threads + "\t" +
+                            (long) iterationsPerSecond + "\t" +
+                            String.format("%.2f", iterationsPerSecond / baseline) + "\t" +
+                            (long) (iterationsPerSecond / threads) + "\t" +
+                            casRetries + "\t" + collisions + "\t" + expansionWaits);
+                }
+            }
+            System.out.println();
+        }
+    }
+
+    /**
+     * Positions reached by random play from the initial state, same for every run with the same seed
+     */
+    private static ArrayList<Context> samplePositions(final Game game, final int numPositions, final long seed) {
+        final Random random = new Random(seed);
+        final ArrayList<Context> positions = new ArrayList<>();
+        while (positions.size() < numPositions) {
+            final Context context = new Context(game, new Trial(game));
+            game.start(context);
+            final int numPlies = random.nextInt(20);
+            for (int i = 0; i < numPlies && !context.trial().over(); i++) {
+                final FastArrayList<Move> legalMoves = game.moves(context).moves();
+                game.apply(context, legalMoves.get(random.nextInt(legalMoves.size())));
+            }
+            if (!context.trial().over())
+                positions.add(context);
+        }
+        return positions;
+    }
+
+}
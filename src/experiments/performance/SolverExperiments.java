@@ -0,0 +1,54 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_Vanilla with MCTS-Solver against MCTS_Vanilla without it, alternating seats.
+ * Prints the win rate of the solver, the average number of nodes it proved per search,
+ * how often it proved the root, and the average time per move that saved.
+ */
+public class SolverExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Knightthrough.lud");
+        games.add("Connect Four.lud");
+
+        final double secondsPerMove = 1.0;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            final int[] rootsSolved = new int[1];
+            final long[] solvedNodes = new long[1];
+            final double[] savedSeconds = new double[1];
+
+            final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                final MCTS_Vanilla solver = new MCTS_Vanilla();
+                solver.setSolver(true);
+                return solver;
+            }, MCTS_Vanilla::new, numGames, secondsPerMove, (agent, tested, moveInGame) -> {
+                if (tested) {
+                    solvedNodes[0] += agent.getLastNumSolvedNodes();
+                    savedSeconds[0] += agent.getLastSolverSavedSeconds();
+                    if (agent.getLastRootSolved())
+                        rootsSolved[0]++;
+                }
+            });
+
+            final int solverMoves = Math.max(1, result.testedMoves);
+            System.out.println(games.get(g) +
+                    "\nsolver win rate = " + result.winRate() +
+                    "\naverage solved nodes per search = " + (double) solvedNodes[0] / solverMoves +
+                    "\nroots solved = " + rootsSolved[0] + " / " + result.testedMoves +
+                    "\naverage seconds saved per move = " + savedSeconds[0] / solverMoves + "\n");
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package experiments.performance;
+
+import Group12.TimeManager;
+import game.Game;
+import mcts.FinalMoveSelection;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_Vanilla with early termination and time banking against MCTS_Vanilla with a
+ * fixed time per move, alternating seats. The managed agent plays the robust child, the only
+ * final move selection early termination applies to. Prints the average time per move the managed agent
+ * saved, how often it stopped early, and its win rate as the decision-quality regression.
+ */
+public class TimeManagerExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+        games.add("Reversi.lud");
+        games.add("Hnefatafl.lud");
+
+        final double secondsPerMove = 1.0;
+        final double gameBudgetSeconds = 100.0;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            final int[] earlyStops = new int[1];
+            // seconds saved and spent by the managed agent
+            final double[] seconds = new double[2];
+
+            final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                final MCTS_Vanilla managed = new MCTS_Vanilla() {
+                    @Override
+                    protected void createPolicies(final Game game) {
+                        super.createPolicies(game);
+                        finalMoveSelection = new FinalMoveSelection.RobustChild();
+                    }
+                };
+                managed.getTimeManager().setEarlyTermination(true);
+                managed.getTimeManager().setGameBudget(gameBudgetSeconds, 0.5);
+                return managed;
+            }, MCTS_Vanilla::new, numGames, secondsPerMove, (agent, tested, moveInGame) -> {
+                if (tested) {
+                    final TimeManager timeManager = agent.getTimeManager();
+                    seconds[0] += timeManager.getLastSavedSeconds();
+                    seconds[1] += timeManager.getLastElapsedSeconds();
+                    if (timeManager.getLastStoppedEarly())
+                        earlyStops[0]++;
+                }
+            });
+
+            final int managedMoves = Math.max(1, result.testedMoves);
+            System.out.println(games.get(g) +
+                    "\nmanaged win rate = " + result.winRate() +
+                    "\naverage seconds per move (managed) = " + seconds[1] / managedMoves +
+                    "\naverage seconds saved per move = " + seconds[0] / managedMoves +
+                    "\nearly stops = " + earlyStops[0] + " / " + result.testedMoves + "\n");
+        }
+    }
+
+}
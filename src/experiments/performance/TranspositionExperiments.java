@@ -0,0 +1,55 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_Vanilla;
+import util.GameLoader;
+
+import java.util.ArrayList;
+
+/**
+ * Plays MCTS_Vanilla searching a DAG with a transposition table against MCTS_Vanilla
+ * searching a tree, alternating seats. Prints the win rate of the DAG, its transposition
+ * hit rate, the estimated memory it saved per search and the iterations per second of both.
+ */
+public class TranspositionExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Tic-Tac-Chess.lud");
+        games.add("Nine Men’s Morris.lud");
+        games.add("Hnefatafl.lud");
+
+        final double secondsPerMove = 1.0;
+        final int numGames = 20;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+
+            final double[] hitRate = new double[1];
+            final long[] bytesSaved = new long[1];
+            // iterations per second of the DAG and of the tree
+            final double[] iterationsPerSecond = new double[2];
+
+            final HeadToHead.Result result = HeadToHead.play(game, () -> {
+                final MCTS_Vanilla dag = new MCTS_Vanilla();
+                dag.setTranspositions(true);
+                return dag;
+            }, MCTS_Vanilla::new, numGames, secondsPerMove, (agent, tested, moveInGame) -> {
+                if (tested) {
+                    hitRate[0] += agent.getLastTranspositionHitRate();
+                    bytesSaved[0] += agent.getLastTranspositionBytesSaved();
+                }
+                iterationsPerSecond[tested ? 0 : 1] += agent.getIterationsPerSecond();
+            });
+
+            final int dagMoves = Math.max(1, result.testedMoves);
+            System.out.println(games.get(g) +
+                    "\nDAG win rate = " + result.winRate() +
+                    "\naverage transposition hit rate = " + hitRate[0] / dagMoves +
+                    "\naverage bytes saved per search = " + bytesSaved[0] / dagMoves +
+                    "\naverage iterations per second (DAG) = " + iterationsPerSecond[0] / dagMoves +
+                    "\naverage iterations per second (tree) = " + iterationsPerSecond[1] / Math.max(1, result.opponentMoves) + "\n");
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package experiments.performance;
+
+import game.Game;
+import mcts.MCTS_Vanilla;
+import mcts.TreeBackend;
+import util.Context;
+import util.GameLoader;
+import util.Move;
+import util.Trial;
+
+import java.util.ArrayList;
+
+/**
+ * Compares iterations per second and tree bytes per node of the OBJECT and ARENA
+ * tree backends of MCTS_Vanilla, using self-play games at a fixed time per move.
+ */
+public class TreeBackendExperiments {
+
+    public static void main(final String[] args) {
+        ArrayList<String> games = new ArrayList<String>();
+        games.add("Breakthrough.lud");
+//        games.add("Reversi.lud");
+//        games.add("Hnefatafl.lud");
+
+        final TreeBackend[] backends = {TreeBackend.OBJECT, TreeBackend.ARENA};
+        final double secondsPerMove = 1.0;
+        final int numGames = 5;
+
+        for (int g = 0; g < games.size(); g++) {
+            Game game = GameLoader.loadGameFromName(games.get(g));
+            final int numPlayers = game.players().count();
+
+            for (TreeBackend backend : backends) {
+                Trial trial = new Trial(game);
+                Context context = new Context(game, trial);
+
+                final MCTS_Vanilla[] agents = new MCTS_Vanilla[numPlayers + 1];
+                for (int p = 1; p <= numPlayers; ++p) {
+                    agents[p] = new MCTS_Vanilla();
+                    agents[p].setTreeBackend(backend);
+                }
+
+                double iterationsPerSecond = 0.0;
+                long nodes = 0L;
+                long bytesPerNode = 0L;
+                int searches = 0;
+
+                for (int i = 0; i < numGames; ++i) {
+                    game.start(context);
+                    for (int p = 1; p <= numPlayers; ++p) {
+                        agents[p].initAI(game, p);
+                    }
+
+                    while (!context.trial().over()) {
+                        final MCTS_Vanilla agent = agents[context.state().mover()];
+                        final Move move = agent.selectAction(game, new Context(context), secondsPerMove, -1, -1);
+
+                        iterationsPerSecond += agent.getIterationsPerSecond();
+                        nodes += agent.getLastNumNodes();
+                        bytesPerNode = agent.getBytesPerNode();
+                        searches++;
+
+                        game.apply(context, move);
+                    }
+                }
+
+                System.out.println(games.get(g) + ": " + backend +
+                        "\naverage iterations per second = " + iterationsPerSecond / searches +
+                        "\naverage nodes per search = " + nodes / searches +
+                        "\ntree bytes per node = " + bytesPerNode + "\n");
+            }
+        }
+    }
+
+}
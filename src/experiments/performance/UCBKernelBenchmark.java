@@ -0,0 +1,136 @@
+package experiments.performance;
+
+import Group12.UCBKernel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Microbenchmark of UCB child selection: the per-child object loop the agents used before
+ * (with and without the per-child strategy string compare of AMSPlayground.select) against
+ * UCBKernel over contiguous child statistics. Prints nanoseconds per selection for a range
+ * of branching factors; every variant selects from the same synthetic statistics.
+ */
+public class UCBKernelBenchmark {
+
+    private static final String selectionStrategy = "UCT";
+
+    /** Child as stored by the object tree */
+    private static final class Child {
+        final int visitCount;
+        final double[] scoreSums;
+
+        Child(final int visitCount, final double[] scoreSums) {
+            this.visitCount = visitCount;
+            this.scoreSums = scoreSums;
+        }
+    }
+
+    public static void main(final String[] args) {
+        final int[] branchingFactors = {10, 30, 100, 300};
+        final int numParents = 256;
+        final int warmupRounds = 200;
+        final int measuredRounds = 2000;
+        final double C = 0.4;
+
+        System.out.println("children\tobject loop ns\tobject loop + string compare ns\tkernel ns\tspeedup");
+        for (int numChildren : branchingFactors) {
+            final Random random = new Random(42L);
+            final List<List<Child>> objectTrees = new ArrayList<>();
+            final int[][] childVisits = new int[numParents][numChildren];
+            final double[][] childScores = new double[numParents][numChildren];
+            final int[] parentVisits = new int[numParents];
+            for (int p = 0; p < numParents; p++) {
+                final List<Child> children = new ArrayList<>();
+                for (int i = 0; i < numChildren; i++) {
+                    final int visits = 1 + random.nextInt(5000);
+                    final double score = visits * (2 * random.nextDouble() - 1);
+                    children.add(new Child(visits, new double[]{0.0, score, -score}));
+                    childVisits[p][i] = visits;
+                    childScores[p][i] = score;
+                    parentVisits[p] += visits;
+                }
+                objectTrees.add(children);
+            }
+
+            long checksum = 0;
+            for (int r = 0; r < warmupRounds; r++) {
+                checksum += runObjectLoop(objectTrees, parentVisits, C, false);
+                checksum += runObjectLoop(objectTrees, parentVisits, C, true);
+                checksum += runKernel(childScores, childVisits, parentVisits, numChildren, C);
+            }
+            // keep the JIT from removing the selections
+            if (checksum == Long.MIN_VALUE)
+                System.out.println(checksum);
+
+            final long objectNanos = time(() -> runObjectLoop(objectTrees, parentVisits, C, false), measuredRounds);
+            final long stringNanos = time(() -> runObjectLoop(objectTrees, parentVisits, C, true), measuredRounds);
+            final long kernelNanos = time(() -> runKernel(childScores, childVisits, parentVisits, numChildren, C), measuredRounds);
+
+            final double selections = (double) measuredRounds * numParents;
+            System.out.println(numChildren + "\t" +
+                    String.format("%.1f", objectNanos / selections) + "\t" +
+                    String.format("%.1f", stringNanos / selections) + "\t" +
+                    String.format("%.1f", kernelNanos / selections) + "\t" +
+                    String.format("%.2f", (double) objectNanos / kernelNanos));
+        }
+    }
+
+    private interface Round {
+        long run();
+    }
+
+    private static long time(final Round round, final int numRounds) {
+        long checksum = 0;
+        final long start = System.nanoTime();
+        for (int r = 0; r < numRounds; r++) {
+            checksum += round.run();
+        }
+        final long nanos = System.nanoTime() - start;
+        // keep the JIT from removing the selections
+        if (checksum == Long.MIN_VALUE)
+            System.out.println(checksum);
+        return nanos;
+    }
+
+    /**
+     * The BestChild loop of MCTS_Vanilla before the kernel, optionally with the strategy
+     * string compare AMSPlayground.select did for every child
+     */
+    private static long runObjectLoop(final List<List<Child>> trees, final int[] parentVisits, final double C,
+                                      final boolean compareStrategy) {
+        long sum = 0;
+        final int mover = 1;
+        for (int p = 0; p < trees.size(); p++) {
+            final List<Child> children = trees.get(p);
+            final double parentLog = Math.log(parentVisits[p]);
+            int bestChild = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < children.size(); i++) {
+                final Child child = children.get(i);
+                final double childValue = child.scoreSums[mover] / child.visitCount;
+                final double explore = (!compareStrategy || selectionStrategy.equals("UCT")) ?
+                        C * Math.sqrt(parentLog / child.visitCount) : 0.0;
+                final double ucbValue = childValue + explore;
+                if (ucbValue > bestValue) {
+                    bestValue = ucbValue;
+                    bestChild = i;
+                }
+            }
+            sum += bestChild;
+        }
+        return sum;
+    }
+
+    private static long runKernel(final double[][] childScores, final int[][] childVisits, final int[] parentVisits,
+                                  final int numChildren, final double C) {
+        long sum = 0;
+        for (int p = 0; p < parentVisits.length; p++) {
+            final double exploration = C * Math.sqrt(Math.log(parentVisits[p]));
+            sum += UCBKernel.selectUCT(childScores[p], childVisits[p], numChildren, 1.0, exploration, null, false);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,57 @@
+package mcts;
+
+import main.collections.FastArrayList;
+import util.Context;
+import util.Move;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Expansion policy of {@link MCTSEngine}: picks which of the moves without a child node
+ * is expanded next.
+ */
+public interface ExpansionPolicy {
+
+    /**
+     * @param unexpandedMoves Moves of the node without a child node, never empty
+     * @param context State of the node, must not be modified
+     * @param history Moves from the root to the node in this iteration, null if
+     *                usesHistory() is false
+     * @return Index of the move to expand
+     */
+    int select(FastArrayList<Move> unexpandedMoves, Context context, List<Move> history);
+
+    /**
+     * @return True if select() needs the moves from the root to the node
+     */
+    default boolean usesHistory() {
+        return false;
+    }
+
+    /**
+     * Called before every search
+     */
+    default void startSearch() {
+    }
+
+    /**
+     * @return Policy for a parallel worker of the search, this policy itself if it has no
+     * state that workers could race on
+     */
+    default ExpansionPolicy forWorker() {
+        return this;
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Expands the unexpanded moves in random order
+     */
+    final class Random implements ExpansionPolicy {
+        @Override
+        public int select(final FastArrayList<Move> unexpandedMoves, final Context context, final List<Move> history) {
+            return ThreadLocalRandom.current().nextInt(unexpandedMoves.size());
+        }
+    }
+}
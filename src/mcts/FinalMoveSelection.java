@@ -0,0 +1,62 @@
+package mcts;
+
+/**
+ * Final move selection of {@link MCTSEngine}: picks the move to play among the children
+ * of the root once the search is over. Statistics are passed as in {@link SelectionPolicy}.
+ */
+public interface FinalMoveSelection {
+
+    /**
+     * @param childScores Score sums of the children, for the player to move in the root
+     * @param childVisits Visit counts of the children, children with 0 visits are skipped
+     * @param numChildren Number of children, the arrays may be longer
+     * @return Index of the selected child, -1 if no child has been visited
+     */
+    int select(double[] childScores, int[] childVisits, int numChildren);
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * "Max child": the child with the highest mean score, the first one on ties
+     */
+    final class MaxChild implements FinalMoveSelection {
+        @Override
+        public int select(final double[] childScores, final int[] childVisits, final int numChildren) {
+            int bestChild = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < numChildren; ++i) {
+                if (childVisits[i] == 0)
+                    continue;
+                final double childValue = childScores[i] / childVisits[i];
+
+                if (childValue > bestValue || bestChild == -1) {
+                    bestValue = childValue;
+                    bestChild = i;
+                }
+            }
+
+            return bestChild;
+        }
+    }
+
+    /**
+     * "Robust child": the most visited child, the first one on ties
+     */
+    final class RobustChild implements FinalMoveSelection {
+        @Override
+        public int select(final double[] childScores, final int[] childVisits, final int numChildren) {
+            int bestChild = -1;
+            int bestVisits = 0;
+
+            for (int i = 0; i < numChildren; ++i) {
+                if (childVisits[i] > bestVisits) {
+                    bestVisits = childVisits[i];
+                    bestChild = i;
+                }
+            }
+
+            return bestChild;
+        }
+    }
+}
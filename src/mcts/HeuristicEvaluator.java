@@ -0,0 +1,78 @@
+package mcts;
+
+import game.Game;
+import metadata.ai.Ai;
+import metadata.ai.heuristics.Heuristics;
+import metadata.ai.heuristics.terms.HeuristicTerm;
+import metadata.ai.heuristics.terms.Material;
+import metadata.ai.heuristics.terms.MobilitySimple;
+import metadata.ai.heuristics.transformations.HeuristicTransformation;
+import metadata.ai.misc.Pair;
+import util.Context;
+
+/**
+ * Evaluates non-terminal states with the heuristics of the game, for progressive bias and
+ * for playouts that are cut off before the end of the game.
+ *
+ * The heuristic value of a player is taken relative to the other players and squashed into
+ * [-1, 1] with tanh, so it can stand in for the utilities of a terminal state.
+ */
+public final class HeuristicEvaluator {
+
+    private final Heuristics heuristicValueFunction;
+    private final int numPlayers;
+
+    /**
+     * Loads the heuristics from the metadata of the game, or Material and MobilitySimple
+     * if it has none, like AMSPlayground does.
+     *
+     * @param game
+     */
+    public HeuristicEvaluator(final Game game) {
+        final Ai aiMetadata = game.metadata().ai();
+        if (aiMetadata != null && aiMetadata.heuristics() != null) {
+            heuristicValueFunction = aiMetadata.heuristics();
+        } else {
+            heuristicValueFunction = new Heuristics(new HeuristicTerm[]{new Material((HeuristicTransformation) null, 1.0F, (Pair[]) null), new MobilitySimple((HeuristicTransformation) null, 0.001F)});
+        }
+        heuristicValueFunction.init(game);
+        numPlayers = game.players().count();
+    }
+
+    /**
+     * @param context
+     * @param player
+     * @return Heuristic value of the state for the player minus that of the other players,
+     * squashed into [-1, 1]
+     */
+    public double value(final Context context, final int player) {
+        float value = heuristicValueFunction.computeValue(context, player, 0.001F);
+        for (int p = 1; p <= numPlayers; p++) {
+            if (p != player)
+                value -= heuristicValueFunction.computeValue(context, p, 0.001F);
+        }
+        return Math.tanh(value);
+    }
+
+    /**
+     * @param context
+     * @return Values of all players, indexed like the utilities of Ludii (index 0 is unused)
+     */
+    public double[] utilities(final Context context) {
+        final float[] values = new float[numPlayers + 1];
+        for (int p = 1; p <= numPlayers; p++) {
+            values[p] = heuristicValueFunction.computeValue(context, p, 0.001F);
+        }
+        float sum = 0.0F;
+        for (int p = 1; p <= numPlayers; p++) {
+            sum += values[p];
+        }
+
+        final double[] utilities = new double[numPlayers + 1];
+        for (int p = 1; p <= numPlayers; p++) {
+            // value of p minus the values of all other players, as in value()
+            utilities[p] = Math.tanh(2 * values[p] - sum);
+        }
+        return utilities;
+    }
+}
@@ -0,0 +1,148 @@
+package mcts;
+
+import game.Game;
+import main.collections.FastArrayList;
+import util.Context;
+import util.Move;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Move-Average Sampling Technique: keeps the average playout result of every move and
+ * picks moves epsilon-greedily on it, both in playouts and when expanding nodes.
+ * Moves without statistics yet are tried first. The statistics are kept in a
+ * {@link MASTTable}, and every search starts from those of the previous search decayed
+ * by a factor. Engines create a new policy in initAI(), so nothing is kept across games.
+ * Only the policy of the main search keeps its statistics: forWorker() gives every other
+ * worker of a root- or leaf-parallel search a new, empty table each search, so the decay
+ * factor only applies to worker 0.
+ */
+public final class MASTPolicy implements ExpansionPolicy, PlayoutPolicy {
+
+    /** Probability of picking a uniformly random move */
+    private final double eps;
+
+    /** Factor the statistics are decayed by between searches, 0 to start every search cold */
+    private final double decay;
+
+    private final MASTTable table = new MASTTable();
+    private final MoveKeys moveKeys = new MoveKeys();
+    /** Key of the move picked by the last call of selectMove() */
+    private long selectedMoveKey = 0L;
+
+    /** Keys of the moves of the running playout, reused by every playout of this policy */
+    private long[] historyKeys = new long[256];
+
+    /**
+     * Constructor, resetting the statistics every search
+     *
+     * @param eps
+     */
+    public MASTPolicy(final double eps) {
+        this(eps, 0.0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param eps
+     * @param decay Factor in [0, 1] the statistics are decayed by between searches
+     */
+    public MASTPolicy(final double eps, final double decay) {
+        this.eps = eps;
+        this.decay = decay;
+    }
+
+    //-------------------------------------------------------------------------
+
+    @Override
+    public void startSearch() {
+        table.decay(decay);
+    }
+
+    /**
+     * @return Policy with an empty table, so a worker other than the main one starts every search cold
+     */
+    @Override
+    public MASTPolicy forWorker() {
+        return new MASTPolicy(eps, decay);
+    }
+
+    /**
+     * @return Number of moves with statistics
+     */
+    public int getTableSize() {
+        return table.size();
+    }
+
+    @Override
+    public int select(final FastArrayList<Move> unexpandedMoves, final Context context, final List<Move> history) {
+        return selectMove(unexpandedMoves, context.state().mover());
+    }
+
+    @Override
+    public double[] playout(final Context context, final int maxNumActions, final HeuristicEvaluator evaluator) {
+        final Game game = context.game();
+
+        // the moves are applied to the given context itself, only their keys are kept
+        int numMoves = 0;
+        while (!context.trial().over() && (maxNumActions < 0 || numMoves < maxNumActions)){
+            final FastArrayList<Move> legalMoves = game.moves(context).moves();
+            final int bestMoveIndex = selectMove(legalMoves, context.state().mover());
+
+            if (numMoves == historyKeys.length)
+                historyKeys = Arrays.copyOf(historyKeys, numMoves * 2);
+            historyKeys[numMoves++] = selectedMoveKey;
+            game.apply(context, legalMoves.get(bestMoveIndex));
+        }
+
+        double[] results = PlayoutPolicy.result(context, evaluator);
+
+        for (int i = 0; i < numMoves; ++i){
+            table.update(historyKeys[i], results);
+        }
+
+        return results;
+    }
+
+    /**
+     * Epsilon-greedy choice on the average result of the moves for the mover,
+     * ties are broken uniformly at random. Also sets selectedMoveKey.
+     */
+    private int selectMove(final FastArrayList<Move> moves, final int mover) {
+        final double p = ThreadLocalRandom.current().nextDouble(1d);
+        if (p <= eps){   // Explore
+            final int r = ThreadLocalRandom.current().nextInt(moves.size());
+            selectedMoveKey = MoveKeys.key(moves.get(r));
+            return r;
+        }
+
+        // Exploit
+        int bestMoveIndex = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int numBestFound = 0;
+        final long[] keys = moveKeys.keys(moves);
+
+        for (int m = 0; m < moves.size(); m++) {
+            double moveScore = Double.MAX_VALUE;
+            final int slot = table.find(keys[m]);
+
+            if(slot >= 0){
+                moveScore = table.meanScore(slot, mover);
+            }
+
+            if (moveScore > bestScore) {
+                bestScore = moveScore;
+                bestMoveIndex = m;
+                numBestFound = 1;
+            } else if (moveScore == bestScore &&
+                    ThreadLocalRandom.current().nextInt() % ++numBestFound == 0) {
+                bestMoveIndex = m;
+            }
+        }
+        selectedMoveKey = keys[bestMoveIndex];
+        return bestMoveIndex;
+    }
+}
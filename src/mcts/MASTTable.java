@@ -0,0 +1,274 @@
+package mcts;
+
+import java.util.Arrays;
+
+/**
+ * Move statistics of MAST: for every move, keyed by {@link MoveKeys}, its number of visits
+ * and the sum of the playout results of every player. Also stores the move sequences of NST, see {@link NGramTable}.
+ *
+ * Open addressing with linear probing over parallel primitive arrays, so a lookup neither
+ * locks, boxes its key nor follows a pointer to a per-move object. The sums of all moves
+ * share one array, numScores values per slot. The table doubles when it is half full.
+ *
+ * The table may be given a capacity. Inserting into a full table first evicts a quarter of
+ * its entries: entries with fewer than a given number of visits before the others, and in
+ * both groups the ones updated longest ago first.
+ */
+public final class MASTTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    /** Priority bit of the entries with enough visits, so they are evicted after all others */
+    private static final long VISITED_PRIORITY = 1L << 62;
+
+    private long[] keys;
+    /** Visits of every slot, 0 for empty slots */
+    private int[] visits;
+    /** Update counter at the last update of every slot */
+    private long[] lastUpdates;
+    private double[] scoreSums;
+    private int mask;
+    /** Number of utilities per result (players + 1), set by the first update */
+    private int numScores = 0;
+    /** Number of moves with statistics */
+    private int size = 0;
+    private long numUpdates = 0L;
+
+    /** Largest number of entries, and the visits below which entries are evicted first */
+    private int maxSize = Integer.MAX_VALUE;
+    private int minVisits = 0;
+
+    /** Counters since the last clear() */
+    private long numLookups = 0L;
+    private long numHits = 0L;
+    private long numEvictions = 0L;
+
+    public MASTTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Bounds the number of entries of the table
+     *
+     * @param maxSize Largest number of entries, -1 for no limit
+     * @param minVisits Entries with fewer visits are evicted before all others
+     */
+    public void setCapacity(final int maxSize, final int minVisits) {
+        this.maxSize = (maxSize < 0) ? Integer.MAX_VALUE : Math.max(4, maxSize);
+        this.minVisits = minVisits;
+        if (size > this.maxSize)
+            evict();
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * @param key
+     * @return Slot of the key, -1 if it has no statistics
+     */
+    public int find(final long key) {
+        numLookups++;
+        int slot = homeSlot(key);
+        while (visits[slot] != 0) {
+            if (keys[slot] == key) {
+                numHits++;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @param slot Slot returned by find()
+     * @param player
+     * @return Average result of the move in the slot for the player
+     */
+    public double meanScore(final int slot, final int player) {
+        return scoreSums[slot * numScores + player] / visits[slot];
+    }
+
+    public int visits(final int slot) {
+        return visits[slot];
+    }
+
+    /**
+     * Adds a playout result to the statistics of a move, creating them if it had none
+     *
+     * @param key
+     * @param results Utilities of all players
+     */
+    public void update(final long key, final double[] results) {
+        if (numScores != results.length) {
+            // the first result tells the number of players
+            numScores = results.length;
+            allocate(keys.length);
+        }
+        final int slot = getOrInsert(key);
+        visits[slot]++;
+        lastUpdates[slot] = ++numUpdates;
+        final int offset = slot * numScores;
+        for (int i = 0; i < numScores; ++i) {
+            scoreSums[offset + i] += results[i];
+        }
+    }
+
+    /**
+     * Removes all statistics and resets the counters, keeping the arrays
+     */
+    public void clear() {
+        Arrays.fill(visits, 0);
+        Arrays.fill(scoreSums, 0.0);
+        size = 0;
+        numLookups = 0L;
+        numHits = 0L;
+        numEvictions = 0L;
+    }
+
+    /**
+     * Scales the visits of every move by the given factor, rounding down, and its sums so that
+     * its average results are kept. Moves left without visits are removed.
+     *
+     * @param factor In [0, 1], 0 clears the table and 1 keeps it unchanged
+     */
+    public void decay(final double factor) {
+        if (factor >= 1.0)
+            return;
+        if (factor <= 0.0) {
+            clear();
+            return;
+        }
+        rebuild(keys.length, factor, -1L);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Largest number of entries, -1 if the table is unbounded
+     */
+    public int capacity() {
+        return (maxSize == Integer.MAX_VALUE) ? -1 : maxSize;
+    }
+
+    /**
+     * @return Fraction of the capacity in use, 0 if the table is unbounded
+     */
+    public double occupancy() {
+        return (maxSize == Integer.MAX_VALUE) ? 0.0 : (double) size / maxSize;
+    }
+
+    public long numEvictions() {
+        return numEvictions;
+    }
+
+    public long numLookups() {
+        return numLookups;
+    }
+
+    /**
+     * @return Fraction of the calls of find() that found their key, 0 if there were none
+     */
+    public double hitRate() {
+        return (numLookups > 0L) ? (double) numHits / numLookups : 0.0;
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * @return Slot of the key, claimed with 0 visits if the key was not in the table
+     */
+    private int getOrInsert(final long key) {
+        int slot = homeSlot(key);
+        while (visits[slot] != 0) {
+            if (keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        if (size >= maxSize) {
+            evict();
+            return getOrInsert(key);
+        }
+        if (2 * (size + 1) > keys.length) {
+            rebuild(keys.length * 2, 1.0, -1L);
+            return getOrInsert(key);
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Evicts the quarter of the entries with the lowest priority
+     */
+    private void evict() {
+        final int numToEvict = Math.max(1, size - maxSize / 4 * 3);
+        final long[] priorities = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (visits[slot] != 0)
+                priorities[n++] = priority(visits[slot], lastUpdates[slot]);
+        }
+        Arrays.sort(priorities);
+        rebuild(keys.length, 1.0, priorities[numToEvict - 1]);
+    }
+
+    /**
+     * @return Update counter of the last update of an entry, above all entries with fewer
+     * than minVisits visits if it has at least minVisits visits
+     */
+    private long priority(final int numVisits, final long lastUpdate) {
+        return (numVisits >= minVisits) ? lastUpdate | VISITED_PRIORITY : lastUpdate;
+    }
+
+    /**
+     * Moves all entries to new arrays of the given capacity
+     *
+     * @param capacity
+     * @param factor Factor the visits and sums of every entry are scaled by
+     * @param maxEvictedPriority Entries with this priority or lower are evicted, -1 to keep all
+     */
+    private void rebuild(final int capacity, final double factor, final long maxEvictedPriority) {
+        final long[] oldKeys = keys;
+        final int[] oldVisits = visits;
+        final long[] oldLastUpdates = lastUpdates;
+        final double[] oldScoreSums = scoreSums;
+        allocate(capacity);
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldVisits[oldSlot] == 0)
+                continue;
+            if (priority(oldVisits[oldSlot], oldLastUpdates[oldSlot]) <= maxEvictedPriority) {
+                numEvictions++;
+                continue;
+            }
+            final int newVisits = (factor >= 1.0) ? oldVisits[oldSlot] : (int) (oldVisits[oldSlot] * factor);
+            if (newVisits == 0)
+                continue;
+            int slot = homeSlot(oldKeys[oldSlot]);
+            while (visits[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[oldSlot];
+            visits[slot] = newVisits;
+            lastUpdates[slot] = oldLastUpdates[oldSlot];
+            final double scale = (double) newVisits / oldVisits[oldSlot];
+            for (int i = 0; i < numScores; ++i) {
+                scoreSums[slot * numScores + i] = oldScoreSums[oldSlot * numScores + i] * scale;
+            }
+            size++;
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        visits = new int[capacity];
+        lastUpdates = new long[capacity];
+        scoreSums = new double[capacity * numScores];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private int homeSlot(final long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
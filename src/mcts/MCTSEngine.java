@@ -0,0 +1,2516 @@
+package mcts;
+
+import Group12.Group12AI;
+import Group12.TimeManager;
+import game.Game;
+import main.collections.FastArrayList;
+import util.Context;
+import util.Move;
+import utils.AIUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MCTS with pluggable policies. Every agent of this package is a configuration of this
+ * engine: it only picks the selection, expansion, playout and final move selection policies
+ * in createPolicies(), and all of them share one implementation of the search itself
+ * (tree reuse, stateless nodes, memory bound, the ARENA backend and parallel searches).
+ *
+ * The policies are created once per game in initAI() and kept in fields, so in a game
+ * between two configurations every call site of a policy sees at most two receiver types,
+ * which HotSpot still inlines.
+ */
+public abstract class MCTSEngine extends Group12AI {
+
+    //-------------------------------------------------------------------------
+
+    /** Fraction of the node budget that is kept when the tree is pruned */
+    private static final double PRUNE_TARGET = 0.75;
+
+    /** Proven values of MCTS-Solver, see Node.proven */
+    private static final byte UNPROVEN = 0;
+    private static final byte PROVEN_WIN = 1;
+    private static final byte PROVEN_LOSS = -1;
+
+    /** Playout lengths recorded one by one, longer playouts share the last bucket */
+    private static final int PLAYOUT_LENGTH_BUCKETS = 512;
+
+    /** Our player index */
+    protected int player = -1;
+    protected String analysisReport;
+    protected int lastNumPlayoutActions;
+    protected int iterations = 0;
+    /** Exploration constant of UCT configurations */
+    protected double C = 0.4;
+
+    /** Policies of the search, see createPolicies() */
+    protected SelectionPolicy selection = null;
+    protected ExpansionPolicy expansion = null;
+    protected PlayoutPolicy playout = null;
+    protected FinalMoveSelection finalMoveSelection = null;
+    /** Expansion and playout policy of the sequential search */
+    private Worker mainWorker = null;
+
+    /** If true, the subtree of the position we search next is kept between turns */
+    protected boolean treeReuse = false;
+    /** Root of the previous search, and the number of moves in its trial */
+    private Node lastRoot = null;
+    private int lastRootNumMoves = 0;
+    /** Visits the root of the last search inherited from the previous tree */
+    protected int inheritedVisits = 0;
+
+    /** If true, the position after our move is searched on a background thread until our next turn */
+    protected boolean pondering = false;
+    /** Iterations after which a ponder search stops, which also bounds the nodes it adds */
+    protected int maxPonderIterations = 1 << 20;
+    private Thread ponderThread = null;
+    private volatile boolean stopPondering = false;
+    /** Root of the running ponder search, the number of moves in its trial, and the visits of its children when it started */
+    private Node ponderRoot = null;
+    private int ponderRootNumMoves = 0;
+    private int[] ponderBaseVisits = null;
+    /** Iterations of the running ponder search, written by the ponder thread before it ends */
+    private int ponderIterations = 0;
+    /** Pondered iterations before the last search, and how many of them went into the reused subtree */
+    protected int lastPonderIterations = 0;
+    protected int lastPonderReusedIterations = 0;
+
+    /** Storage backend for the search tree */
+    protected TreeBackend treeBackend = TreeBackend.OBJECT;
+    /** Node arena of the ARENA backend, kept between searches to avoid reallocating it */
+    private NodeArena arena = null;
+    /** Children statistics of one arena node, gathered for the selection policy */
+    private int[] arenaChildren = new int[16];
+    private int[] arenaChildVisits = new int[16];
+    private double[] arenaChildScores = new double[16];
+    /**
+     * If true, nodes of the object tree only store the move that led to them, and every
+     * iteration rebuilds the state of the selected path on one copy of the root context.
+     */
+    protected boolean statelessNodes = false;
+
+    /** Number of independent trees searched in parallel from the root, 1 searches a single tree */
+    protected int numRootWorkers = 1;
+    /** Pool running the parallel workers, created on first use if not set */
+    protected ForkJoinPool forkJoinPool = null;
+    private boolean ownsForkJoinPool = false;
+    /** Iterations of every worker in the last parallel search */
+    protected int[] workerIterations = new int[0];
+    /** Number of workers descending one shared tree (tree parallelisation), 1 searches a single tree */
+    protected int numTreeWorkers = 1;
+    /** Utility that an in-flight descent of a worker counts with in BestChild */
+    protected double virtualLoss = 1.0;
+    /** Shared tree of the last tree-parallel search, holding its contention counters */
+    private TreeParallelSearch treeParallelSearch = null;
+    /** Number of playouts run concurrently from every selected node (leaf parallelisation) */
+    protected int numLeafWorkers = 1;
+
+    /** If true, wins and losses proven by terminal nodes are propagated up the tree (MCTS-Solver) */
+    protected boolean solver = false;
+
+    /**
+     * If true, a node may only have wideningConstant * visits^wideningExponent children
+     * (progressive widening), added in the order of the expansion policy
+     */
+    protected boolean progressiveWidening = false;
+    protected double wideningConstant = 1.0;
+    protected double wideningExponent = 0.5;
+
+    /**
+     * If true, BestChild adds progressiveBiasWeight * H / (n + 1) to the mean of a child,
+     * with H the heuristic value of its state, evaluated once when the child is created
+     */
+    protected boolean progressiveBias = false;
+    protected double progressiveBiasWeight = 1.0;
+    /**
+     * Maximum number of moves of a playout, -1 plays out until the game is over. States of
+     * playouts that are cut off are scored by the heuristics of the game.
+     */
+    protected int maxPlayoutActions = -1;
+    /** Heuristics of the game for progressive bias and playout cutoffs, loaded on the first search of a game */
+    private HeuristicEvaluator heuristicEvaluator = null;
+
+    /**
+     * If true, BestChild blends the mean of a child with its AMAF mean (RAVE), weighted by
+     * beta = sqrt(raveEquivalence / (3 * n + raveEquivalence)) for a child with n visits
+     */
+    protected boolean rave = false;
+    protected double raveEquivalence = 1000.0;
+
+    /** If true, nodes of the same state are shared through a transposition table, turning the tree into a DAG */
+    protected boolean transpositions = false;
+    /** Maximum number of entries of the transposition table */
+    protected int transpositionTableSize = 1 << 20;
+    /** Transposition table, kept between searches to avoid reallocating it */
+    private TranspositionTable<Node> transpositionTable = null;
+
+    /** Maximum number of nodes in the tree, least-visited subtrees are pruned beyond it */
+    protected int maxNodes = Integer.MAX_VALUE;
+    /** Maximum bytes of the tree, replaces maxNodes if positive */
+    protected long maxTreeBytes = 0L;
+    /** Bytes every node holds on top of getBytesPerNode(), such as its Context and move list */
+    protected long extraBytesPerNode = 0L;
+
+    /** Statistics of the last search */
+    protected int lastNumNodes = 0;
+    protected int lastNumPlayers = 0;
+    protected long lastSearchNanos = 0L;
+    protected int lastNumPlayouts = 0;
+    protected int lastNumPrunes = 0;
+    protected int lastPeakNumNodes = 0;
+    protected int lastNumMoveGenerations = 0;
+    protected int lastNumMoveGenerationsSaved = 0;
+    protected int lastNumSolvedNodes = 0;
+    protected boolean lastRootSolved = false;
+    protected long lastTranspositionLookups = 0L;
+    protected long lastTranspositionHits = 0L;
+    protected long lastTranspositionBytesSaved = 0L;
+    /** Number of playouts of every length, the last bucket counting all longer ones */
+    protected int[] lastPlayoutLengths = new int[PLAYOUT_LENGTH_BUCKETS + 1];
+    protected int lastNumCutoffPlayouts = 0;
+    /**
+     * If true, the time of the selection, playout and backpropagation of every iteration is
+     * added to the search statistics, at the cost of three System.nanoTime() calls per iteration
+     */
+    protected boolean phaseTiming = false;
+    /** Legal move generations of the running search, shared by root-parallel workers */
+    private final LongAdder moveGenerations = new LongAdder();
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Sets selection, expansion, playout and finalMoveSelection. Called by initAI(), and by
+     * the first search if initAI() was never called.
+     *
+     * @param game
+     */
+    protected abstract void createPolicies(Game game);
+
+    //-------------------------------------------------------------------------
+
+    @Override
+    public Move selectAction(Game game, Context context, double maxSeconds, int maxIterations, int maxDepth) {
+        if (mainWorker == null)
+            initPolicies(game);
+        searchStatistics.startSearch(maxSeconds);
+        // get the action by calling Monte-Carlo tree search
+        final Move move = MCTS(game, context, maxSeconds, maxIterations, maxDepth);
+        searchStatistics.endSearch(iterations);
+        searchStatistics.addPlayouts(lastNumPlayouts);
+        searchStatistics.addNodes(lastNumNodes);
+        analysisReport = searchStatistics.toString();
+        return move;
+    }
+
+    private Move MCTS(Game game, Context context, double maxSeconds, int maxIterations, int maxDepth) {
+        // the opponent has moved: pondering hands its tree over to this search
+        stopPondering(context);
+        playout.startSearch();
+        if (expansion != playout)
+            expansion.startSearch();
+        // only the sequential search runs on a transposition table
+        mainWorker.table = null;
+        if ((progressiveBias || maxPlayoutActions >= 0) && heuristicEvaluator == null)
+            heuristicEvaluator = new HeuristicEvaluator(game);
+
+        if (treeBackend == TreeBackend.ARENA)
+            return MCTSArena(game, context, maxSeconds, maxIterations, maxDepth);
+        if (numTreeWorkers > 1)
+            return MCTSTreeParallel(game, context, maxSeconds, maxIterations);
+        if (numRootWorkers > 1)
+            return MCTSRootParallel(game, context, maxSeconds, maxIterations);
+
+        final long startTime = System.nanoTime();
+        lastNumNodes = 1;
+        lastNumPlayers = game.players().count();
+        moveGenerations.reset();
+
+        // the DAG of a transposition search is neither reused, pruned nor solved
+        final TranspositionTable<Node> table = transpositions ? transpositionTable(context) : null;
+        mainWorker.table = table;
+
+        // initialize Monte-Carlo Tree, starting from the subtree of the previous search if we can
+        Node root = ((treeReuse || pondering) && table == null) ? reuseTree(context) : null;
+        if (root == null) {
+            root = new Node(null, null, context);
+            lastPonderReusedIterations = 0;
+        }
+        inheritedVisits = root.visitCount;
+        if (table != null)
+            table.put(context.state().fullHash(), root, 0);
+
+        final int maxIts = (maxIterations >= 0) ? maxIterations : Integer.MAX_VALUE;
+
+        // the solver only handles two-player games, where a win of one player is a loss of the other
+        final boolean solve = solver && lastNumPlayers == 2 && table == null;
+        root.proven = solve ? rootValue(root) : UNPROVEN;
+
+        resetIterations();
+        timeManager.startSearch(maxSeconds, maxIts);
+        final int budget = (table == null) ? nodeBudget() : Integer.MAX_VALUE;
+        final int[] counts = searchTree(root, maxIts, numLeafWorkers, budget, timeManager, false, mainWorker, solve);
+        timeManager.endSearch();
+        final int numIterations = counts[0];
+        lastNumNodes += counts[1];
+        lastNumPlayouts = counts[2];
+        lastNumPrunes = counts[3];
+        lastPeakNumNodes = counts[4];
+        lastNumSolvedNodes = counts[5];
+        lastRootSolved = root.proven != UNPROVEN;
+        updateTranspositionStatistics(table);
+        updateWorkerStatistics(mainWorker);
+        workerIterations = new int[]{numIterations};
+
+        Move bestMove = finalMoveSelection(root, context);
+        if (pondering && table == null) {
+            startPondering(root, bestMove, context);
+        } else if (treeReuse && table == null) {
+            lastRoot = root;
+            lastRootNumMoves = context.trial().moves().size();
+        }
+        updateIterations(numIterations);
+        updateMoveGenerations();
+        lastSearchNanos = System.nanoTime() - startTime;
+        // Return best move to play from root
+        return bestMove;
+    }
+
+    /**
+     * Runs MCTS iterations on the given tree until we run out of time or iterations.
+     * Only the given tree is modified, so separate trees can be searched concurrently.
+     *
+     * @param root
+     * @param maxIts Iteration limit of this tree, also checked by the time manager of a sequential search
+     * @param playoutsPerLeaf Number of playouts run concurrently from every selected node
+     * @param budget Maximum number of nodes in the tree
+     * @param timeManager Checks the limits of the search, null to only stop after maxIts iterations
+     * @param parallel If true, the time manager is shared with the workers of other trees,
+     *                 and only its deadline is checked
+     * @param worker Expansion and playout policy of this search
+     * @param solve If true, proven wins and losses are propagated and the search stops once the root is proven
+     * @return The number of iterations, nodes added to the tree, playouts, prunes,
+     * the peak number of nodes in the tree and nodes proven by the solver
+     */
+    private int[] searchTree(final Node root, final int maxIts, final int playoutsPerLeaf, final int budget,
+                             final TimeManager timeManager, final boolean parallel, final Worker worker,
+                             final boolean solve) {
+        int numIterations = 0;
+        int numNodes = 0;
+        int numPlayouts = 0;
+        int numPrunes = 0;
+        int numSolved = 0;
+        int numLiveNodes = countNodes(root);
+        int peakNumNodes = numLiveNodes;
+        int pruneAt = budget;
+        final PlayoutPolicy[] leafPlayouts = (playoutsPerLeaf > 1) ? leafPlayouts(worker, playoutsPerLeaf) : null;
+        worker.resetStatistics();
+        // a visit lead only settles the move if the most visited child is the one played
+        final TimeManager.RootStatistics rootStatistics = (finalMoveSelection instanceof FinalMoveSelection.RobustChild) ?
+                visits -> topTwoVisits(root, visits) : null;
+        final boolean timed = phaseTiming;
+        // start of the current phase of the iteration, pruning counts as selection
+        long phaseStart = timed ? System.nanoTime() : 0L;
+        // keep searching until running out of time (ExampleUCT)
+        while(((timeManager == null) ? numIterations < maxIts :		// Respect iteration limit
+                parallel ? numIterations < maxIts && timeManager.continueParallelSearch(numIterations) :
+                timeManager.continueSearch(numIterations, rootStatistics)) &&	// Respect iteration and time limit
+                !wantsInterrupt &&							// Respect GUI user clicking the pause button
+                !stopPondering &&							// Respect the end of the opponent's turn when pondering
+                root.proven == UNPROVEN						// Nothing left to search once the root is proven
+        ){
+            if (numLiveNodes >= pruneAt) {
+                final int numRemoved = pruneTree(root, numLiveNodes, (int) (budget * PRUNE_TARGET));
+                numLiveNodes -= numRemoved;
+                numPrunes++;
+                // if only the root and its children are left, grow past the budget before trying again
+                pruneAt = (numRemoved > 0) ? budget : numLiveNodes + Math.max(1, budget / 4);
+            }
+            // Stateless nodes replay the selected path on a fresh copy of the root state
+            final Context iterationContext = statelessNodes ? new Context(root.context) : null;
+            Node selectedNode = (worker.table != null) ?
+                    SelectionDAG(root, iterationContext, worker) : Selection(root, iterationContext, worker);
+            worker.addSelection((worker.table != null) ? worker.pathLength - 1 : worker.selectionDepth);
+            if (selectedNode.visitCount == 0) {
+                numNodes++;
+                numLiveNodes++;
+                peakNumNodes = Math.max(peakNumNodes, numLiveNodes);
+                if (worker.firstExpansionTime == 0L)
+                    worker.firstExpansionTime = System.nanoTime();
+            }
+            final Context leafContext = stateOf(selectedNode, iterationContext);
+            // checked before the playout, which may move an in-place leaf context on
+            final boolean terminal = leafContext.trial().over();
+            if (timed)
+                phaseStart = worker.timeSelection(phaseStart);
+            if (leafPlayouts != null && !terminal) {
+                // Several simulated games are played at once, their summed results are backpropagated together
+                final double[] summedResult = PlayOutLeafParallel(leafContext, leafPlayouts, worker);
+                if (timed)
+                    phaseStart = worker.timePlayout(phaseStart);
+                Backpropagation(selectedNode, summedResult, playoutsPerLeaf, worker);
+                numPlayouts += playoutsPerLeaf;
+            } else {
+                // A simulated game is played
+                double[] result = PlayOut(leafContext, statelessNodes, worker);
+                if (timed)
+                    phaseStart = worker.timePlayout(phaseStart);
+                // The result is backpropagated
+                Backpropagation(selectedNode, result, 1, worker);
+                numPlayouts++;
+                if (solve && terminal)
+                    numSolved += Solve(selectedNode, result);
+            }
+            if (timed)
+                phaseStart = worker.timeBackpropagation(phaseStart);
+            numIterations++;
+        }
+        return new int[]{numIterations, numNodes, numPlayouts, numPrunes, peakNumNodes, numSolved};
+    }
+
+    /**
+     * Root parallelisation: searches numRootWorkers independent trees from the same root
+     * state on the fork-join pool, then merges the statistics of the root children.
+     * Every worker draws from its own ThreadLocalRandom stream and gets its own copy of
+     * stateful expansion and playout policies.
+     */
+    private Move MCTSRootParallel(Game game, Context context, double maxSeconds, int maxIterations) {
+        final long startTime = System.nanoTime();
+        final int numWorkers = numRootWorkers;
+        final int numPlayers = game.players().count();
+        lastNumPlayers = numPlayers;
+        moveGenerations.reset();
+
+        final int maxIts = (maxIterations >= 0) ? maxIterations : Integer.MAX_VALUE;
+
+        final int[] iterationsPerWorker = new int[numWorkers];
+        final int[] nodesPerWorker = new int[numWorkers];
+        final int[] prunesPerWorker = new int[numWorkers];
+        final int[] peakNodesPerWorker = new int[numWorkers];
+        // the node budget is split over the trees
+        final int budget = nodeBudget();
+        final int workerBudget = (budget == Integer.MAX_VALUE) ? budget : Math.max(1, budget / numWorkers);
+        final Worker[] workerPolicies = new Worker[numWorkers];
+        final List<Callable<Node>> workers = new ArrayList<>(numWorkers);
+        for (int w = 0; w < numWorkers; w++) {
+            final int worker = w;
+            // the iteration budget is split over the workers
+            final int workerIts = (maxIts == Integer.MAX_VALUE) ? maxIts :
+                    maxIts / numWorkers + ((worker < maxIts % numWorkers) ? 1 : 0);
+            // every worker gets its own copy of the root state
+            final Context workerContext = new Context(context);
+            workerPolicies[worker] = (worker == 0) ? mainWorker : newWorker();
+            workers.add(() -> {
+                final Node root = new Node(null, null, workerContext);
+                final int[] counts = searchTree(root, workerIts, 1, workerBudget, timeManager, true, workerPolicies[worker], false);
+                iterationsPerWorker[worker] = counts[0];
+                nodesPerWorker[worker] = counts[1] + 1;
+                prunesPerWorker[worker] = counts[3];
+                peakNodesPerWorker[worker] = counts[4];
+                return root;
+            });
+        }
+
+        final List<Node> roots = new ArrayList<>(numWorkers);
+        timeManager.startSearch(maxSeconds, maxIts);
+        try {
+            for (Future<Node> future : workerPool(numWorkers).invokeAll(workers)) {
+                roots.add(future.get());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Root-parallel search was interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Root-parallel search failed", e.getCause());
+        } finally {
+            timeManager.endSearch();
+        }
+
+        // merge visit counts and score sums of the root children of all trees
+        final FastArrayList<Move> rootMoves = game.moves(context).moves();
+        final int mover = context.state().mover();
+        final int[] visitCounts = new int[rootMoves.size()];
+        final double[] scoreSums = new double[rootMoves.size()];
+        for (Node root : roots) {
+            for (int i = 0; i < root.children.size(); i++) {
+                final Node child = root.children.get(i);
+                final int m = indexOfMove(rootMoves, child.moveFromParent);
+                if (m < 0)
+                    continue;
+                visitCounts[m] += child.visitCount;
+                scoreSums[m] += child.scoreSums[mover];
+            }
+        }
+
+        resetIterations();
+        int numIterations = 0;
+        lastNumNodes = 0;
+        lastNumPrunes = 0;
+        lastPeakNumNodes = 0;
+        for (int w = 0; w < numWorkers; w++) {
+            numIterations += iterationsPerWorker[w];
+            lastNumNodes += nodesPerWorker[w];
+            lastNumPrunes += prunesPerWorker[w];
+            lastPeakNumNodes += peakNodesPerWorker[w];
+        }
+        lastNumPlayouts = numIterations;
+        workerIterations = iterationsPerWorker;
+        lastNumSolvedNodes = 0;
+        lastRootSolved = false;
+        updateTranspositionStatistics(null);
+        updateWorkerStatistics(workerPolicies);
+        updateIterations(numIterations);
+        final int bestRootMove = finalMoveSelection.select(scoreSums, visitCounts, rootMoves.size());
+        final Move bestMove = (bestRootMove >= 0) ? rootMoves.get(bestRootMove) : randomLegalMove(context);
+        updateMoveGenerations();
+        lastSearchNanos = System.nanoTime() - startTime;
+        return bestMove;
+    }
+
+    /**
+     * Tree parallelisation: numTreeWorkers workers search one shared tree,
+     * see {@link TreeParallelSearch}
+     */
+    private Move MCTSTreeParallel(Game game, Context context, double maxSeconds, int maxIterations) {
+        final long startTime = System.nanoTime();
+        lastNumPlayers = game.players().count();
+
+        final int maxIts = (maxIterations >= 0) ? maxIterations : Integer.MAX_VALUE;
+
+        treeParallelSearch = new TreeParallelSearch(selection, playout, finalMoveSelection, virtualLoss,
+                maxPlayoutActions, heuristicEvaluator);
+        timeManager.startSearch(maxSeconds, maxIts);
+        final Move bestMove;
+        try {
+            bestMove = treeParallelSearch.search(context, workerPool(numTreeWorkers), numTreeWorkers,
+                    timeManager, maxIts, () -> wantsInterrupt);
+        } finally {
+            timeManager.endSearch();
+        }
+
+        resetIterations();
+        workerIterations = treeParallelSearch.workerIterations;
+        int numIterations = 0;
+        for (int w = 0; w < workerIterations.length; w++) {
+            numIterations += workerIterations[w];
+        }
+        updateIterations(numIterations);
+        lastNumPlayouts = numIterations;
+        lastNumNodes = treeParallelSearch.numNodes;
+        lastNumSolvedNodes = 0;
+        lastRootSolved = false;
+        updateTranspositionStatistics(null);
+        // the workers of the shared tree do not record their playouts
+        updateWorkerStatistics();
+        lastNumPrunes = 0;
+        lastPeakNumNodes = lastNumNodes;
+        // nodes of the shared tree generate their legal moves when they are created
+        moveGenerations.reset();
+        moveGenerations.add(lastNumNodes);
+        updateMoveGenerations();
+        lastSearchNanos = System.nanoTime() - startTime;
+        return bestMove;
+    }
+
+    private ForkJoinPool workerPool(final int parallelism) {
+        if (forkJoinPool != null && ownsForkJoinPool && forkJoinPool.getParallelism() != parallelism) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+            ownsForkJoinPool = true;
+        }
+        return forkJoinPool;
+    }
+
+    private void updateMoveGenerations() {
+        lastNumMoveGenerations = moveGenerations.intValue();
+        lastNumMoveGenerationsSaved = Math.max(0, lastNumNodes - lastNumMoveGenerations);
+    }
+
+    /**
+     * Sums the playout lengths, selection depths and phase times recorded by the given
+     * workers into the statistics of the last search
+     */
+    private void updateWorkerStatistics(final Worker... workers) {
+        Arrays.fill(lastPlayoutLengths, 0);
+        lastNumPlayoutActions = 0;
+        lastNumCutoffPlayouts = 0;
+        int numRecordedPlayouts = 0;
+        for (Worker worker : workers) {
+            for (int length = 0; length < lastPlayoutLengths.length; length++) {
+                lastPlayoutLengths[length] += worker.playoutLengths[length];
+                numRecordedPlayouts += worker.playoutLengths[length];
+            }
+            lastNumPlayoutActions += worker.numPlayoutActions;
+            lastNumCutoffPlayouts += worker.numCutoffPlayouts;
+
+            searchStatistics.addSelections(worker.sumSelectionDepth, worker.numSelections, worker.maxSelectionDepth);
+            searchStatistics.addSelectionNanos(worker.selectionNanos);
+            searchStatistics.addPlayoutNanos(worker.playoutNanos);
+            searchStatistics.addBackpropagationNanos(worker.backpropagationNanos);
+            if (worker.firstExpansionTime != 0L)
+                searchStatistics.expandedAt(worker.firstExpansionTime);
+        }
+        searchStatistics.addPlayoutActions(lastNumPlayoutActions, numRecordedPlayouts);
+    }
+
+    private static int indexOfMove(final FastArrayList<Move> moves, final Move move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i).equals(move))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Same search as MCTS(), but with the tree stored in a {@link NodeArena}
+     */
+    private Move MCTSArena(Game game, Context context, double maxSeconds, int maxIterations, int maxDepth) {
+        final long startTime = System.nanoTime();
+        final int numPlayers = game.players().count();
+        lastNumPlayers = numPlayers;
+        moveGenerations.reset();
+
+        // initialize Monte-Carlo Tree, reusing the arrays of the previous search
+        if (arena == null || arena.numScores != numPlayers + 1)
+            arena = new NodeArena(numPlayers);
+        else
+            arena.clear();
+        final int root = arena.allocate(NodeArena.NONE, null, context, null);
+
+        final int maxIts = (maxIterations >= 0) ? maxIterations : Integer.MAX_VALUE;
+
+        int numIterations = 0;
+        int numPlayouts = 0;
+        final PlayoutPolicy[] leafPlayouts = (numLeafWorkers > 1) ? leafPlayouts(mainWorker, numLeafWorkers) : null;
+        mainWorker.resetStatistics();
+        resetIterations();
+        timeManager.startSearch(maxSeconds, maxIts);
+        final TimeManager.RootStatistics rootStatistics = (finalMoveSelection instanceof FinalMoveSelection.RobustChild) ?
+                visits -> topTwoVisitsArena(root, visits) : null;
+        final boolean timed = phaseTiming;
+        while(timeManager.continueSearch(numIterations, rootStatistics) && 	// Respect iteration and time limit
+                !wantsInterrupt								// Respect GUI user clicking the pause button
+        ){
+            long phaseStart = timed ? System.nanoTime() : 0L;
+            final int selectedNode = SelectionArena(root, mainWorker);
+            mainWorker.addSelection(mainWorker.selectionDepth);
+            if (arena.visitCount[selectedNode] == 0 && mainWorker.firstExpansionTime == 0L)
+                mainWorker.firstExpansionTime = System.nanoTime();
+            final Context leafContext = arena.context[selectedNode];
+            if (timed)
+                phaseStart = mainWorker.timeSelection(phaseStart);
+            if (leafPlayouts != null && !leafContext.trial().over()) {
+                // Several simulated games are played at once, their summed results are backpropagated together
+                final double[] summedResult = PlayOutLeafParallel(leafContext, leafPlayouts, mainWorker);
+                if (timed)
+                    phaseStart = mainWorker.timePlayout(phaseStart);
+                BackpropagationArena(selectedNode, summedResult, numLeafWorkers);
+                numPlayouts += numLeafWorkers;
+            } else {
+                // A simulated game is played
+                double[] result = PlayOut(leafContext, false, mainWorker);
+                if (timed)
+                    phaseStart = mainWorker.timePlayout(phaseStart);
+                // The result is backpropagated
+                BackpropagationArena(selectedNode, result, 1);
+                numPlayouts++;
+            }
+            if (timed)
+                mainWorker.timeBackpropagation(phaseStart);
+            numIterations++;
+        }
+        timeManager.endSearch();
+        Move bestMove = finalMoveSelectionArena(root, context);
+        updateIterations(numIterations);
+        lastNumNodes = arena.size;
+        lastNumPlayouts = numPlayouts;
+        lastNumPrunes = 0;
+        lastNumSolvedNodes = 0;
+        lastRootSolved = false;
+        updateTranspositionStatistics(null);
+        updateWorkerStatistics(mainWorker);
+        lastPeakNumNodes = lastNumNodes;
+        updateMoveGenerations();
+        lastSearchNanos = System.nanoTime() - startTime;
+        // Return best move to play from root
+        return bestMove;
+    }
+
+    /**
+     * @param currentNode
+     * @param iterationContext Copy of the root state for stateless nodes (moved along the
+     *                         selected path), null if nodes store their own context
+     * @param worker
+     * @return
+     */
+    private Node Selection(Node currentNode, Context iterationContext, Worker worker){
+        final List<Move> history = worker.history;
+        if (history != null)
+            history.clear();
+        int depth = 0;
+        // Traverse tree
+        while (true) {
+            if (stateOf(currentNode, iterationContext).trial().over()) {
+                // We've reached a terminal state
+                break;
+            }
+
+            final Node nextNode = SelectionUCT(currentNode, iterationContext, worker);
+            if (nextNode == null) {
+                // every child is proven: play out from here
+                break;
+            }
+            currentNode = nextNode;
+            depth++;
+
+            if (currentNode.visitCount == 0) {
+                // We've expanded a new node, time for playout!
+                break;
+            }
+            if (history != null)
+                history.add(currentNode.moveFromParent);
+        }
+        worker.selectionDepth = depth;
+        return currentNode;
+    }
+
+    private Node SelectionUCT(Node currentNode, Context iterationContext, Worker worker) {
+        // If there is any unexpanded move from the current node...
+        final Context nodeContext = stateOf(currentNode, iterationContext);
+        final FastArrayList<Move> unexpandedMoves = unexpandedMoves(currentNode, nodeContext);
+        if (canExpand(currentNode, unexpandedMoves))
+        {
+            // ... let the expansion policy pick an unexpanded move
+            final Move move = unexpandedMoves.remove(worker.expansion.select(unexpandedMoves, nodeContext, worker.history));
+
+            // create a copy of context (stateless nodes just advance the iteration context)
+            final Context context = statelessNodes ? iterationContext : new Context(currentNode.context);
+
+            // apply the move
+            context.game().apply(context, move);
+
+            // create new node and return it
+            // This is EXPANSION already.
+            final Node child = new Node(currentNode, move, context, !statelessNodes);
+            if (progressiveBias)
+                currentNode.setChildBias(child.indexInParent, heuristicBias(context, currentNode.mover));
+            return child;
+        }
+
+        final Node bestChild = BestChild(currentNode, worker);
+        if (statelessNodes && bestChild != null)
+            iterationContext.game().apply(iterationContext, bestChild.moveFromParent);
+        return bestChild;
+    }
+
+    /**
+     * @return The context holding the state of the given node
+     */
+    private static Context stateOf(Node node, Context iterationContext) {
+        return (node.context != null) ? node.context : iterationContext;
+    }
+
+    /**
+     * Lazy move generation: the legal moves of a node are only generated when it is first
+     * selected for expansion, so leaves that only receive a playout never need them.
+     *
+     * @param node
+     * @param context State of the node
+     * @return Moves of the node for which we did not yet create a child node
+     */
+    private FastArrayList<Move> unexpandedMoves(final Node node, final Context context) {
+        if (node.unexpandedMoves == null) {
+            // For simplicity, we just take ALL legal moves.
+            // This means we do not support simultaneous-move games.
+            node.unexpandedMoves = new FastArrayList<Move>(context.game().moves(context).moves());
+            moveGenerations.increment();
+        }
+        return node.unexpandedMoves;
+    }
+
+    /**
+     * Progressive bias: heuristic value of a new child for the player who moved into it
+     *
+     * @param context State of the child
+     * @param player Mover of the parent
+     * @return Weighted bias H of the child
+     */
+    private double heuristicBias(final Context context, final int player) {
+        return progressiveBiasWeight * heuristicEvaluator.value(context, player);
+    }
+
+    /**
+     * Progressive widening: with widening enabled, a node only gets a new child while it has
+     * fewer than wideningConstant * visits^wideningExponent children, so the iterations of
+     * wide nodes go to the children the expansion policy ranked first.
+     *
+     * @param node
+     * @param unexpandedMoves
+     * @return True if a child should be expanded rather than selected
+     */
+    private boolean canExpand(final Node node, final FastArrayList<Move> unexpandedMoves) {
+        if (unexpandedMoves.isEmpty())
+            return false;
+        if (!progressiveWidening)
+            return true;
+        final int numChildren = node.children.size();
+        // a node whose children are all proven has nothing else to select
+        return numChildren == node.numProvenChildren ||
+                numChildren < wideningConstant * Math.pow(node.visitCount, wideningExponent);
+    }
+
+    private Node BestChild(Node currentNode, Worker worker){
+        if (currentNode.numProvenChildren > 0 || currentNode.childBias != null || currentNode.amafVisits != null)
+            return BestChildGathered(currentNode, worker);
+
+        // statistics of the children are kept contiguously in their parent, from the mover's point of view
+        final int bestChild = selection.select(currentNode.childScores, currentNode.childVisits,
+                currentNode.children.size(), currentNode.visitCount);
+
+        return (bestChild >= 0) ? currentNode.children.get(bestChild) : null;
+    }
+
+    /**
+     * BestChild for nodes with proven children, progressive bias or AMAF statistics: the
+     * statistics the selection policy sees are gathered into the scratch arrays of the worker,
+     * leaving out the children whose value is proven and adjusting the score sums
+     */
+    private Node BestChildGathered(Node currentNode, Worker worker){
+        final int numChildren = currentNode.children.size();
+        worker.ensureCapacity(numChildren);
+
+        int numUnproven = 0;
+        for (int i = 0; i < numChildren; i++) {
+            if (currentNode.children.get(i).proven != UNPROVEN)
+                continue;
+            final int visits = currentNode.childVisits[i];
+            worker.childIndices[numUnproven] = i;
+            worker.childVisits[numUnproven] = visits;
+            worker.childScores[numUnproven] = adjustedScore(currentNode, i, currentNode.childScores[i], visits);
+            numUnproven++;
+        }
+        if (numUnproven == 0)
+            return null;
+
+        final int bestChild = selection.select(worker.childScores, worker.childVisits, numUnproven, currentNode.visitCount);
+        return currentNode.children.get(worker.childIndices[bestChild]);
+    }
+
+    /**
+     * Applies RAVE and progressive bias to the score sum of a child
+     *
+     * @param node Parent
+     * @param child Index of the child
+     * @param score Score sum of the child for the mover of the parent
+     * @param visits Visits of the child
+     * @return Score sum handed to the selection policy
+     */
+    private double adjustedScore(final Node node, final int child, double score, final int visits) {
+        final int[] amafVisits = node.amafVisits;
+        if (amafVisits != null && amafVisits[child] > 0) {
+            // blend the means, moving from AMAF to the child's own mean as its visits grow
+            final double beta = Math.sqrt(raveEquivalence / (3.0 * visits + raveEquivalence));
+            score = (1.0 - beta) * score + beta * visits * node.amafScores[child] / amafVisits[child];
+        }
+        final double[] childBias = node.childBias;
+        if (childBias != null) {
+            // a bias of H / (n + 1) on the mean is a bias of n * H / (n + 1) on the score sum
+            score += visits * childBias[child] / (visits + 1);
+        }
+        return score;
+    }
+
+    // ExampleUCT line 89
+    /**
+     * @param leafContext State of the selected node
+     * @param inPlace If true, the playout modifies leafContext itself instead of a copy
+     * @param worker
+     * @return
+     */
+    private double[] PlayOut(final Context leafContext, final boolean inPlace, final Worker worker) {
+        if (rave) {
+            worker.amafMoves.clear();
+            worker.amafRecorded = true;
+        }
+        if (leafContext.trial().over())
+            return AIUtils.utilities(leafContext);
+        // Run a playout if we don't already have a terminal game state in node
+        final Context playoutContext = inPlace ? leafContext : new Context(leafContext);
+        final int numMovesBefore = playoutContext.trial().moves().size();
+        final double[] result = worker.playout.playout(playoutContext, maxPlayoutActions, heuristicEvaluator);
+        worker.recordPlayout(playoutContext, numMovesBefore);
+        if (!rave)
+            return result;
+
+        // the moves of the playout are read back from the trial, whatever policy played them
+        final List<Move> moves = playoutContext.trial().moves();
+        for (int i = numMovesBefore; i < moves.size(); i++) {
+            final Move move = moves.get(i);
+            worker.amafMoves.add(MoveKeys.key(move), move.mover());
+        }
+        return result;
+    }
+
+    /**
+     * Leaf parallelisation: runs one playout per given policy from the same state on the
+     * worker pool, every one on its own copy of the state and with the random stream of its thread.
+     *
+     * @param contextEnd State to play out from, not modified
+     * @param policies
+     * @param worker Records the lengths of the playouts
+     * @return Utilities of all playouts, summed per player
+     */
+    private double[] PlayOutLeafParallel(final Context contextEnd, final PlayoutPolicy[] policies, final Worker worker) {
+        final List<Callable<double[]>> playouts = new ArrayList<>(policies.length);
+        final Context[] playoutContexts = new Context[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            final PlayoutPolicy policy = policies[i];
+            final Context playoutContext = new Context(contextEnd);
+            playoutContexts[i] = playoutContext;
+            playouts.add(() -> policy.playout(playoutContext, maxPlayoutActions, heuristicEvaluator));
+        }
+
+        double[] summedResult = null;
+        try {
+            for (Future<double[]> future : workerPool(policies.length).invokeAll(playouts)) {
+                final double[] result = future.get();
+                if (summedResult == null) {
+                    summedResult = result.clone();
+                } else {
+                    for (int player = 0; player < result.length; player++) {
+                        summedResult[player] += result[player];
+                    }
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Leaf-parallel playout was interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Leaf-parallel playout failed", e.getCause());
+        }
+        final int numMovesBefore = contextEnd.trial().moves().size();
+        for (Context playoutContext : playoutContexts) {
+            worker.recordPlayout(playoutContext, numMovesBefore);
+        }
+        return summedResult;
+    }
+
+    /**
+     * @return One playout policy for every concurrent playout of a leaf, the first one being
+     * the policy of the given worker
+     */
+    private PlayoutPolicy[] leafPlayouts(final Worker worker, final int numPlayouts) {
+        final PlayoutPolicy[] policies = new PlayoutPolicy[numPlayouts];
+        policies[0] = worker.playout;
+        for (int i = 1; i < numPlayouts; i++) {
+            policies[i] = worker.playout.forWorker();
+        }
+        return policies;
+    }
+
+    /**
+     * @param currentNode
+     * @param result Utilities, summed over all playouts
+     * @param numPlayouts Number of playouts the result was summed over
+     */
+    private void Backpropagation(Node currentNode, double[] result, int numPlayouts, Worker worker) {
+        // AMAF statistics are only updated from single playouts that recorded their moves
+        final MoveKeySet amafMoves = worker.amafRecorded ? worker.amafMoves : null;
+        worker.amafRecorded = false;
+        if (worker.table != null) {
+            BackpropagationDAG(worker, result, numPlayouts, amafMoves);
+            return;
+        }
+        // utilities hold one entry per player, plus the unused index 0
+        final int playersCount = result.length - 1;
+        while (currentNode != null){
+            currentNode.visitCount += numPlayouts;
+            for (int player = 0; player <= playersCount; player++) {
+                currentNode.scoreSums[player] += result[player];
+            }
+            final Node parent = currentNode.parent;
+            if (amafMoves != null) {
+                // amafMoves holds the moves played after currentNode
+                UpdateAmaf(currentNode, amafMoves, result);
+                if (parent != null)
+                    amafMoves.add(parent.childMoveKey(currentNode.indexInParent), parent.mover);
+            }
+            if (parent != null) {
+                parent.childVisits[currentNode.indexInParent] += numPlayouts;
+                parent.childScores[currentNode.indexInParent] += result[parent.mover];
+            }
+            currentNode = parent;
+        }
+    }
+
+    /**
+     * RAVE: every child whose move the mover of the node played later in the iteration
+     * (all-moves-as-first) gets the result of the iteration in its AMAF statistics
+     *
+     * @param node
+     * @param amafMoves Moves played after the node, by their mover
+     * @param result
+     */
+    private static void UpdateAmaf(final Node node, final MoveKeySet amafMoves, final double[] result) {
+        final int numChildren = node.children.size();
+        if (numChildren == 0)
+            return;
+        node.ensureAmaf();
+        final double utility = result[node.mover];
+        for (int i = 0; i < numChildren; i++) {
+            if (amafMoves.contains(node.childMoveKeys[i], node.mover)) {
+                node.amafVisits[i]++;
+                node.amafScores[i] += utility;
+            }
+        }
+    }
+
+    /**
+     * Selection in a DAG: like Selection(), but a new state that is already in the
+     * transposition table is linked to its existing node instead of getting a node of its
+     * own, and the path is recorded since nodes may have several parents. A link that would
+     * close a cycle on the current path gets a node of its own, and a descent that runs
+     * into the current path through earlier links stops where it is.
+     */
+    private Node SelectionDAG(Node currentNode, Context iterationContext, Worker worker){
+        final TranspositionTable<Node> table = worker.table;
+        final List<Move> history = worker.history;
+        if (history != null)
+            history.clear();
+        worker.startPath(currentNode);
+        while (true) {
+            final Context nodeContext = stateOf(currentNode, iterationContext);
+            if (nodeContext.trial().over()) {
+                // We've reached a terminal state
+                break;
+            }
+
+            final FastArrayList<Move> unexpandedMoves = unexpandedMoves(currentNode, nodeContext);
+            if (canExpand(currentNode, unexpandedMoves)) {
+                final Move move = unexpandedMoves.remove(worker.expansion.select(unexpandedMoves, nodeContext, history));
+                final Context context = statelessNodes ? iterationContext : new Context(currentNode.context);
+                context.game().apply(context, move);
+
+                final long hash = context.state().fullHash();
+                final Node transposition = table.get(hash);
+                if (transposition != null && !worker.onPath(transposition)) {
+                    // a transposition: add an edge to the existing node and descend through it
+                    final int edge = currentNode.addChild(transposition, move);
+                    if (progressiveBias)
+                        currentNode.setChildBias(edge, heuristicBias(context, currentNode.mover));
+                    worker.extendPath(transposition, edge);
+                    currentNode = transposition;
+                } else {
+                    final Node child = new Node(currentNode, move, context, !statelessNodes);
+                    if (progressiveBias)
+                        currentNode.setChildBias(child.indexInParent, heuristicBias(context, currentNode.mover));
+                    worker.extendPath(child, child.indexInParent);
+                    if (transposition == null)
+                        table.put(hash, child, worker.pathLength - 1);
+                    // We've expanded a new node, time for playout!
+                    return child;
+                }
+            } else {
+                final int edge = BestEdgeDAG(currentNode, worker);
+                final Node bestChild = currentNode.children.get(edge);
+                if (worker.onPath(bestChild)) {
+                    // the edge closes a cycle: play out from here
+                    break;
+                }
+                if (statelessNodes)
+                    iterationContext.game().apply(iterationContext, currentNode.childMoves[edge]);
+                worker.extendPath(bestChild, edge);
+                currentNode = bestChild;
+            }
+
+            if (currentNode.visitCount == 0) {
+                // a transposition that has not been backpropagated yet
+                break;
+            }
+            if (history != null)
+                history.add(worker.path[worker.pathLength - 2].childMoves[worker.pathEdges[worker.pathLength - 1]]);
+        }
+        return currentNode;
+    }
+
+    /**
+     * BestChild in a DAG: the selection policy explores by the visits of the edges, but
+     * values a child by the mean of its node, which includes the visits of all its parents
+     *
+     * @return Index of the selected edge
+     */
+    private int BestEdgeDAG(Node currentNode, Worker worker){
+        final int numChildren = currentNode.children.size();
+        worker.ensureCapacity(numChildren);
+
+        int parentVisits = 0;
+        for (int i = 0; i < numChildren; i++) {
+            final Node child = currentNode.children.get(i);
+            final int edgeVisits = currentNode.childVisits[i];
+            final double score = child.scoreSums[currentNode.mover] / child.visitCount * edgeVisits;
+            worker.childVisits[i] = edgeVisits;
+            worker.childScores[i] = adjustedScore(currentNode, i, score, edgeVisits);
+            parentVisits += edgeVisits;
+        }
+
+        return selection.select(worker.childScores, worker.childVisits, numChildren, parentVisits);
+    }
+
+    /**
+     * Backpropagation in a DAG: updates the nodes and edges of the recorded path
+     */
+    private static void BackpropagationDAG(Worker worker, double[] result, int numPlayouts, MoveKeySet amafMoves) {
+        final int playersCount = result.length - 1;
+        for (int i = worker.pathLength - 1; i >= 0; i--) {
+            final Node node = worker.path[i];
+            node.visitCount += numPlayouts;
+            for (int player = 0; player <= playersCount; player++) {
+                node.scoreSums[player] += result[player];
+            }
+            if (amafMoves != null) {
+                UpdateAmaf(node, amafMoves, result);
+                if (i > 0)
+                    amafMoves.add(worker.path[i - 1].childMoveKey(worker.pathEdges[i]), worker.path[i - 1].mover);
+            }
+            if (i > 0) {
+                final Node parent = worker.path[i - 1];
+                final int edge = worker.pathEdges[i];
+                parent.childVisits[edge] += numPlayouts;
+                parent.childScores[edge] += result[parent.mover];
+            }
+        }
+    }
+
+    /**
+     * @return Transposition table of the size currently set, cleared for a new search
+     */
+    private TranspositionTable<Node> transpositionTable(final Context context) {
+        if (transpositionTable == null || transpositionTable.capacity() <
+                Integer.highestOneBit(Math.max(1, transpositionTableSize - 1) << 1))
+            transpositionTable = new TranspositionTable<>(transpositionTableSize);
+        else
+            transpositionTable.clear();
+        return transpositionTable;
+    }
+
+    private void updateTranspositionStatistics(final TranspositionTable<Node> table) {
+        if (table == null) {
+            lastTranspositionLookups = 0L;
+            lastTranspositionHits = 0L;
+            lastTranspositionBytesSaved = 0L;
+            return;
+        }
+        lastTranspositionLookups = table.numLookups;
+        lastTranspositionHits = table.numHits;
+        // every hit is a node (and its state) that did not have to be allocated, the table itself costs memory
+        final long bytesPerNode = objectBytesPerNode(lastNumPlayers) + extraBytesPerNode;
+        lastTranspositionBytesSaved = lastTranspositionHits * bytesPerNode - table.bytes();
+    }
+
+    /**
+     * MCTS-Solver: marks a terminal node as a proven win or loss for the player who moved
+     * into it, and propagates proven values up the tree. A node is a proven win for its mover
+     * as soon as one child is, and a proven loss once all its moves are expanded and all its
+     * children are proven losses for its mover. A proven root stops the search.
+     *
+     * @param terminalNode
+     * @param result Utilities of the terminal state
+     * @return Number of nodes that got proven
+     */
+    private static int Solve(Node terminalNode, double[] result) {
+        Node node = terminalNode;
+        if (node.parent == null || node.proven != UNPROVEN)
+            return 0;
+        final double utility = result[node.parent.mover];
+        node.proven = (utility > 0.0) ? PROVEN_WIN : (utility < 0.0) ? PROVEN_LOSS : UNPROVEN;
+
+        int numSolved = 0;
+        while (node.proven != UNPROVEN && node.parent != null) {
+            numSolved++;
+            final Node parent = node.parent;
+            parent.numProvenChildren++;
+            // value of the parent for its own mover
+            final byte value;
+            if (node.proven == PROVEN_WIN)
+                value = PROVEN_WIN;
+            else if (isFullyExpanded(parent) && parent.numProvenChildren == parent.children.size())
+                value = PROVEN_LOSS;    // a proven win among the children would have proven the parent already
+            else
+                value = UNPROVEN;
+
+            if (parent.parent == null) {
+                // the root keeps its value for its own mover
+                parent.proven = value;
+                break;
+            }
+            parent.proven = (parent.parent.mover == parent.mover) ? value : (byte) -value;
+            node = parent;
+        }
+        return numSolved;
+    }
+
+    /**
+     * @return Proven value of the root for its own mover, from the proven values of its children
+     */
+    private static byte rootValue(final Node root) {
+        for (int i = 0; i < root.children.size(); i++) {
+            if (root.children.get(i).proven == PROVEN_WIN)
+                return PROVEN_WIN;
+        }
+        if (root.children.isEmpty() || !isFullyExpanded(root) || root.numProvenChildren < root.children.size())
+            return UNPROVEN;
+        return PROVEN_LOSS;
+    }
+
+    private static boolean isFullyExpanded(final Node node) {
+        return node.unexpandedMoves != null && node.unexpandedMoves.isEmpty();
+    }
+
+    /**
+     * Tree reuse: walks down the tree of the previous search along the moves played
+     * since then, and promotes the subtree we end up in to the new root.
+     *
+     * @param context
+     * @return New root, or null if the previous tree does not contain the current state
+     */
+    private Node reuseTree(final Context context) {
+        Node node = lastRoot;
+        lastRoot = null;
+        if (node == null)
+            return null;
+
+        final List<Move> playedMoves = context.trial().moves();
+        if (playedMoves.size() < lastRootNumMoves)
+            return null;
+
+        for (int i = lastRootNumMoves; i < playedMoves.size() && node != null; i++) {
+            node = findChild(node, playedMoves.get(i));
+        }
+
+        if (node == null || (node.context != null && node.context.state().fullHash() != context.state().fullHash()))
+            return null;
+
+        // detach the subtree, the rest of the old tree is released
+        node.parent = null;
+        node.context = context;
+        return node;
+    }
+
+    /**
+     * Pondering: detaches the subtree of the move we are about to play and keeps searching it
+     * on a background thread, until stopPondering() is called by our next search. A subtree
+     * the solver already proved is not searched, only offered to reuseTree().
+     *
+     * @param root Root of the search that just ended
+     * @param bestMove Move we play
+     * @param context State of the root
+     */
+    private void startPondering(final Node root, final Move bestMove, final Context context) {
+        Node node = findChild(root, bestMove);
+        Context ponderContext = (node != null) ? node.context : null;
+        if (ponderContext == null) {
+            ponderContext = new Context(context);
+            ponderContext.game().apply(ponderContext, bestMove);
+        }
+        if (ponderContext.trial().over())
+            return;
+        if (node != null && node.proven != UNPROVEN) {
+            // every child may be proven, leaving the ponder search nothing to select
+            lastRoot = root;
+            lastRootNumMoves = context.trial().moves().size();
+            return;
+        }
+
+        if (node == null) {
+            node = new Node(null, null, ponderContext);
+        } else {
+            node.parent = null;
+            node.context = ponderContext;
+        }
+        ponderRoot = node;
+        ponderRootNumMoves = ponderContext.trial().moves().size();
+        ponderBaseVisits = new int[node.children.size()];
+        for (int i = 0; i < ponderBaseVisits.length; i++) {
+            ponderBaseVisits[i] = node.children.get(i).visitCount;
+        }
+        ponderIterations = 0;
+
+        final Node ponderRootNode = node;
+        final int budget = nodeBudget();
+        final int maxIts = maxPonderIterations;
+        ponderThread = new Thread(() -> {
+            ponderIterations = searchTree(ponderRootNode, maxIts, 1, budget, null, false, mainWorker, false)[0];
+        }, "MCTS ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * Stops the ponder search, if one is running, and offers its tree to reuseTree().
+     * Counts how many pondered iterations went through the move the opponent played.
+     *
+     * @param context Current state, null if the tree will not be reused
+     */
+    private void stopPondering(final Context context) {
+        lastPonderIterations = 0;
+        lastPonderReusedIterations = 0;
+        if (ponderThread == null)
+            return;
+
+        stopPondering = true;
+        try {
+            ponderThread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pondering was interrupted", e);
+        } finally {
+            stopPondering = false;
+            ponderThread = null;
+        }
+
+        lastPonderIterations = ponderIterations;
+        final Node node = ponderRoot;
+        ponderRoot = null;
+        if (context == null)
+            return;
+
+        final List<Move> playedMoves = context.trial().moves();
+        if (playedMoves.size() > ponderRootNumMoves) {
+            final Node child = findChild(node, playedMoves.get(ponderRootNumMoves));
+            if (child != null) {
+                final int baseVisits = (child.indexInParent < ponderBaseVisits.length) ? ponderBaseVisits[child.indexInParent] : 0;
+                lastPonderReusedIterations = Math.max(0, Math.min(lastPonderIterations, child.visitCount - baseVisits));
+            }
+        }
+        lastRoot = node;
+        lastRootNumMoves = ponderRootNumMoves;
+    }
+
+    /**
+     * @return Maximum number of nodes of the object tree, derived from the memory budget if one is set
+     */
+    private int nodeBudget() {
+        if (maxTreeBytes <= 0L)
+            return maxNodes;
+        final long bytesPerNode = objectBytesPerNode(lastNumPlayers) + extraBytesPerNode;
+        return (int) Math.max(2L, Math.min(Integer.MAX_VALUE - 1, maxTreeBytes / bytesPerNode));
+    }
+
+    private static int countNodes(final Node root) {
+        int numNodes = 0;
+        final ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final Node node = stack.pop();
+            numNodes++;
+            for (int i = 0; i < node.children.size(); i++) {
+                stack.push(node.children.get(i));
+            }
+        }
+        return numNodes;
+    }
+
+    /**
+     * Memory bound: removes the least-visited subtrees until at most targetNodes nodes are left.
+     * The move leading to a removed subtree is returned to unexpandedMoves of its parent, so
+     * it can be expanded again later. Children of the root are always kept.
+     *
+     * @param root
+     * @param numNodes Current number of nodes in the tree
+     * @param targetNodes
+     * @return Number of nodes removed
+     */
+    private static int pruneTree(final Node root, final int numNodes, final int targetNodes) {
+        final int numToRemove = numNodes - targetNodes;
+        if (numToRemove <= 0)
+            return 0;
+
+        // visit counts of all nodes below the children of the root
+        int[] visitCounts = new int[Math.max(16, numNodes)];
+        int numCandidates = 0;
+        final ArrayDeque<Node> stack = new ArrayDeque<>();
+        for (int i = 0; i < root.children.size(); i++) {
+            stack.push(root.children.get(i));
+        }
+        while (!stack.isEmpty()) {
+            final Node node = stack.pop();
+            for (int i = 0; i < node.children.size(); i++) {
+                final Node child = node.children.get(i);
+                if (numCandidates == visitCounts.length)
+                    visitCounts = Arrays.copyOf(visitCounts, numCandidates * 2);
+                visitCounts[numCandidates++] = child.visitCount;
+                stack.push(child);
+            }
+        }
+        if (numCandidates == 0)
+            return 0;
+
+        // a child never has more visits than its parent, so the nodes with at most
+        // this many visits form whole subtrees
+        Arrays.sort(visitCounts, 0, numCandidates);
+        final int threshold = visitCounts[Math.min(numToRemove, numCandidates) - 1];
+        int numRemoved = Math.min(numToRemove, numCandidates);
+        while (numRemoved < numCandidates && visitCounts[numRemoved] <= threshold) {
+            numRemoved++;
+        }
+
+        for (int i = 0; i < root.children.size(); i++) {
+            stack.push(root.children.get(i));
+        }
+        while (!stack.isEmpty()) {
+            final Node node = stack.pop();
+            int numKept = 0;
+            for (int i = 0; i < node.children.size(); i++) {
+                final Node child = node.children.get(i);
+                if (child.visitCount <= threshold) {
+                    node.unexpandedMoves.add(child.moveFromParent);
+                    child.parent = null;
+                    if (child.proven != UNPROVEN)
+                        node.numProvenChildren--;
+                } else {
+                    node.childVisits[numKept] = node.childVisits[i];
+                    node.childScores[numKept] = node.childScores[i];
+                    node.childMoves[numKept] = node.childMoves[i];
+                    if (node.childBias != null)
+                        node.childBias[numKept] = node.childBias[i];
+                    if (node.amafVisits != null) {
+                        node.amafVisits[numKept] = node.amafVisits[i];
+                        node.amafScores[numKept] = node.amafScores[i];
+                        node.childMoveKeys[numKept] = node.childMoveKeys[i];
+                    }
+                    child.indexInParent = numKept;
+                    node.children.set(numKept++, child);
+                    stack.push(child);
+                }
+            }
+            node.children.subList(numKept, node.children.size()).clear();
+        }
+        return numRemoved;
+    }
+
+    private static Node findChild(final Node node, final Move move) {
+        for (int i = 0; i < node.children.size(); i++) {
+            final Node child = node.children.get(i);
+            if (child.moveFromParent.equals(move))
+                return child;
+        }
+        return null;
+    }
+
+    /**
+     * Writes the visit counts of the two most visited children of the root to visits,
+     * for early termination by the time manager
+     */
+    private static void topTwoVisits(final Node root, final int[] visits) {
+        visits[0] = 0;
+        visits[1] = 0;
+        final int numChildren = root.children.size();
+        for (int i = 0; i < numChildren; i++) {
+            final int n = root.childVisits[i];
+            if (n > visits[0]) {
+                visits[1] = visits[0];
+                visits[0] = n;
+            } else if (n > visits[1]) {
+                visits[1] = n;
+            }
+        }
+    }
+
+    private void topTwoVisitsArena(final int root, final int[] visits) {
+        visits[0] = 0;
+        visits[1] = 0;
+        for (int child = arena.firstChild[root]; child != NodeArena.NONE; child = arena.nextSibling[child]) {
+            final int n = arena.visitCount[child];
+            if (n > visits[0]) {
+                visits[1] = visits[0];
+                visits[0] = n;
+            } else if (n > visits[1]) {
+                visits[1] = n;
+            }
+        }
+    }
+
+    private Move finalMoveSelection(Node root, final Context context) {
+        if (root.proven == PROVEN_WIN) {
+            // play the proven win
+            for (int i = 0; i < root.children.size(); i++) {
+                final Node child = root.children.get(i);
+                if (child.proven == PROVEN_WIN)
+                    return child.moveFromParent;
+            }
+        }
+        final int bestChild = finalMoveSelection.select(root.childScores, root.childVisits, root.children.size());
+        if (bestChild < 0)
+            return randomLegalMove(context);
+        // in a DAG, the child may have been created by another parent with another move
+        return root.childMoves[bestChild];
+    }
+
+    /**
+     * @return Uniformly random legal move, played if no child of the root was visited, as
+     * when the search stopped before its first iteration
+     */
+    private static Move randomLegalMove(final Context context) {
+        final FastArrayList<Move> legalMoves = context.game().moves(context).moves();
+        return legalMoves.get(ThreadLocalRandom.current().nextInt(legalMoves.size()));
+    }
+
+    //-------------------------------------------------------------------------
+    // ARENA BACKEND: same selection, backpropagation and final move selection
+    // as above, running over the primitive arrays of the NodeArena
+
+    private int SelectionArena(int currentNode, Worker worker){
+        final NodeArena tree = arena;
+        final List<Move> history = worker.history;
+        if (history != null)
+            history.clear();
+        int depth = 0;
+        while (true) {
+            if (tree.context[currentNode].trial().over()) {
+                // We've reached a terminal state
+                break;
+            }
+
+            currentNode = SelectionUCTArena(currentNode, worker);
+            depth++;
+
+            if (tree.visitCount[currentNode] == 0) {
+                // We've expanded a new node, time for playout!
+                break;
+            }
+            if (history != null)
+                history.add(tree.moveFromParent[currentNode]);
+        }
+        worker.selectionDepth = depth;
+        return currentNode;
+    }
+
+    private int SelectionUCTArena(int currentNode, Worker worker) {
+        final NodeArena tree = arena;
+        final Context nodeContext = tree.context[currentNode];
+        FastArrayList<Move> unexpandedMoves = tree.unexpandedMoves[currentNode];
+        if (unexpandedMoves == null) {
+            // legal moves are generated when the node is first selected for expansion
+            unexpandedMoves = new FastArrayList<Move>(nodeContext.game().moves(nodeContext).moves());
+            tree.unexpandedMoves[currentNode] = unexpandedMoves;
+            moveGenerations.increment();
+        }
+
+        if (!unexpandedMoves.isEmpty())
+        {
+            final Move move = unexpandedMoves.remove(worker.expansion.select(unexpandedMoves, nodeContext, worker.history));
+
+            final Context context = new Context(nodeContext);
+            context.game().apply(context, move);
+
+            return tree.allocate(currentNode, move, context, null);
+        }
+
+        return BestChildArena(currentNode);
+    }
+
+    private int BestChildArena(int currentNode){
+        final int numChildren = gatherArenaChildren(currentNode);
+        final int bestChild = selection.select(arenaChildScores, arenaChildVisits, numChildren,
+                arena.visitCount[currentNode]);
+        return (bestChild >= 0) ? arenaChildren[bestChild] : NodeArena.NONE;
+    }
+
+    /**
+     * Copies the statistics of the children of an arena node into the contiguous
+     * arrays the policies take, from the point of view of the mover of the node
+     *
+     * @return Number of children
+     */
+    private int gatherArenaChildren(final int node) {
+        final NodeArena tree = arena;
+        final int numScores = tree.numScores;
+        final int mover = tree.context[node].state().mover();
+
+        int numChildren = 0;
+        for (int child = tree.firstChild[node]; child != NodeArena.NONE; child = tree.nextSibling[child]) {
+            if (numChildren == arenaChildren.length) {
+                arenaChildren = Arrays.copyOf(arenaChildren, numChildren * 2);
+                arenaChildVisits = Arrays.copyOf(arenaChildVisits, numChildren * 2);
+                arenaChildScores = Arrays.copyOf(arenaChildScores, numChildren * 2);
+            }
+            arenaChildren[numChildren] = child;
+            arenaChildVisits[numChildren] = tree.visitCount[child];
+            arenaChildScores[numChildren] = tree.scoreSums[child * numScores + mover];
+            numChildren++;
+        }
+        return numChildren;
+    }
+
+    private void BackpropagationArena(int currentNode, double[] result, int numPlayouts) {
+        final NodeArena tree = arena;
+        final int numScores = tree.numScores;
+        while (currentNode != NodeArena.NONE){
+            tree.visitCount[currentNode] += numPlayouts;
+            final int offset = currentNode * numScores;
+            for (int player = 0; player < numScores; player++) {
+                tree.scoreSums[offset + player] += result[player];
+            }
+            currentNode = tree.parent[currentNode];
+        }
+    }
+
+    private Move finalMoveSelectionArena(int root, final Context context) {
+        final int numChildren = gatherArenaChildren(root);
+        final int bestChild = finalMoveSelection.select(arenaChildScores, arenaChildVisits, numChildren);
+        if (bestChild < 0)
+            return randomLegalMove(context);
+        return arena.moveFromParent[arenaChildren[bestChild]];
+    }
+
+    //-------------------------------------------------------------------------
+
+    @Override
+    public void initAI(final Game game, final int playerID)
+    {
+        stopPondering(null);
+        this.player = playerID;
+        this.analysisReport = null;
+        this.lastRoot = null;
+        this.inheritedVisits = 0;
+        this.heuristicEvaluator = null;
+        timeManager.startGame();
+        initPolicies(game);
+    }
+
+    @Override
+    public void closeAI() {
+        stopPondering(null);
+        this.lastRoot = null;
+    }
+
+    private void initPolicies(final Game game) {
+        createPolicies(game);
+        mainWorker = new Worker(expansion, playout);
+    }
+
+    /**
+     * @return Expansion and playout policy for a parallel worker
+     */
+    private Worker newWorker() {
+        final PlayoutPolicy workerPlayout = playout.forWorker();
+        // a policy serving both roles returns its own class from forWorker(), so it keeps both roles
+        final ExpansionPolicy workerExpansion = (expansion == playout) ?
+                (ExpansionPolicy) workerPlayout : expansion.forWorker();
+        return new Worker(workerExpansion, workerPlayout);
+    }
+
+    @Override
+    public boolean supportsGame(final Game game) {
+        return !game.isStochasticGame() && !game.hiddenInformation() && game.isAlternatingMoveGame();
+    }
+
+    public int getIterations(){
+        return this.iterations;
+    }
+
+    protected void updateIterations(int iterations){
+        this.iterations += iterations;
+    }
+
+    protected void resetIterations(){
+        this.iterations = 0;
+    }
+
+    public boolean getTreeReuse() {
+        return this.treeReuse;
+    }
+
+    /**
+     * Enables keeping the subtree of the position we search next between turns
+     *
+     * @param treeReuse
+     */
+    public void setTreeReuse(final boolean treeReuse) {
+        this.treeReuse = treeReuse;
+        if (!treeReuse)
+            this.lastRoot = null;
+    }
+
+    public boolean getPhaseTiming() {
+        return this.phaseTiming;
+    }
+
+    /**
+     * Enables timing the selection, playout and backpropagation of every iteration, which
+     * the search statistics then report. Off by default, as it reads the clock three times
+     * per iteration.
+     *
+     * @param phaseTiming
+     */
+    public void setPhaseTiming(final boolean phaseTiming) {
+        this.phaseTiming = phaseTiming;
+    }
+
+    public boolean getPondering() {
+        return this.pondering;
+    }
+
+    /**
+     * Enables pondering: after selectAction() returns, the position after our move keeps
+     * being searched on a background thread during the opponent's turn. The next
+     * selectAction() stops it and reuses the subtree of the move the opponent played, as
+     * tree reuse does. Applies to the sequential search of the OBJECT backend without
+     * transpositions. The ponder search has no time limit, it stops after
+     * getMaxPonderIterations() iterations if the opponent takes long or the game ends.
+     *
+     * @param pondering
+     */
+    public void setPondering(final boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering(null);
+            if (!treeReuse)
+                this.lastRoot = null;
+        }
+    }
+
+    public int getMaxPonderIterations() {
+        return this.maxPonderIterations;
+    }
+
+    /**
+     * Sets the iterations after which a ponder search stops. Every iteration adds at most
+     * one node, so this also bounds the memory pondering takes on top of the searched tree.
+     *
+     * @param maxPonderIterations
+     */
+    public void setMaxPonderIterations(final int maxPonderIterations) {
+        this.maxPonderIterations = Math.max(0, maxPonderIterations);
+    }
+
+    /**
+     * @return Iterations pondered before the last search
+     */
+    public int getLastPonderIterations() {
+        return this.lastPonderIterations;
+    }
+
+    /**
+     * @return Pondered iterations through the move the opponent played, which the last search
+     * started from
+     */
+    public int getLastPonderReusedIterations() {
+        return this.lastPonderReusedIterations;
+    }
+
+    /**
+     * @return Pondered iterations through moves the opponent did not play
+     */
+    public int getLastPonderDiscardedIterations() {
+        return this.lastPonderIterations - this.lastPonderReusedIterations;
+    }
+
+    /**
+     * @return Visits the root of the last search inherited from the previous tree
+     */
+    public int getInheritedVisits() {
+        return this.inheritedVisits;
+    }
+
+    /**
+     * @return Legal move generations of the last search
+     */
+    public int getLastNumMoveGenerations() {
+        return this.lastNumMoveGenerations;
+    }
+
+    /**
+     * @return Legal move generations the last search saved over generating the moves of
+     * every node it created: nodes that never got selected for expansion
+     */
+    public int getLastNumMoveGenerationsSaved() {
+        return this.lastNumMoveGenerationsSaved;
+    }
+
+    public String generateAnalysisReport() {
+        return this.analysisReport==null ? "No analysis generated" : this.analysisReport;
+    }
+
+    /**
+     * @return Number of moves played in the playouts of the last search
+     */
+    public int getNumPlayoutActions() {
+        return this.lastNumPlayoutActions;
+    }
+
+    /**
+     * Sets the number of independent trees searched in parallel from the root (root
+     * parallelisation). Applies to the OBJECT tree backend; the trees are not reused.
+     *
+     * @param numRootWorkers
+     */
+    public void setRootParallelism(final int numRootWorkers) {
+        this.numRootWorkers = Math.max(1, numRootWorkers);
+    }
+
+    public int getRootParallelism() {
+        return this.numRootWorkers;
+    }
+
+    /**
+     * Sets the number of playouts run concurrently from every selected node (leaf
+     * parallelisation). Their results are backpropagated in one pass, counting as that
+     * many visits. Applies to the sequential search with either backend, root- and
+     * tree-parallel searches run one playout per iteration.
+     *
+     * @param numLeafWorkers
+     */
+    public void setLeafParallelism(final int numLeafWorkers) {
+        this.numLeafWorkers = Math.max(1, numLeafWorkers);
+    }
+
+    public int getLeafParallelism() {
+        return this.numLeafWorkers;
+    }
+
+    /**
+     * @return Number of playouts run in the last search
+     */
+    public int getLastNumPlayouts() {
+        return this.lastNumPlayouts;
+    }
+
+    /**
+     * Sets the number of workers searching one shared tree (tree parallelisation).
+     * Takes precedence over root parallelism; the tree is not reused.
+     *
+     * @param numTreeWorkers
+     */
+    public void setTreeParallelism(final int numTreeWorkers) {
+        this.numTreeWorkers = Math.max(1, numTreeWorkers);
+    }
+
+    public int getTreeParallelism() {
+        return this.numTreeWorkers;
+    }
+
+    /**
+     * Sets the utility an in-flight descent of a tree-parallel worker counts with,
+     * larger values push concurrent workers further apart.
+     *
+     * @param virtualLoss
+     */
+    public void setVirtualLoss(final double virtualLoss) {
+        this.virtualLoss = virtualLoss;
+    }
+
+    public double getVirtualLoss() {
+        return this.virtualLoss;
+    }
+
+    /**
+     * @return Failed CAS attempts on score sums in the last tree-parallel search
+     */
+    public long getCasRetries() {
+        return (treeParallelSearch != null) ? treeParallelSearch.casRetries.sum() : 0L;
+    }
+
+    /**
+     * @return Selections of a child that another worker was still descending through,
+     * in the last tree-parallel search
+     */
+    public long getVirtualLossCollisions() {
+        return (treeParallelSearch != null) ? treeParallelSearch.virtualLossCollisions.sum() : 0L;
+    }
+
+    /**
+     * @return Descents that found all moves of a node claimed but no child published yet,
+     * in the last tree-parallel search
+     */
+    public long getExpansionWaits() {
+        return (treeParallelSearch != null) ? treeParallelSearch.expansionWaits.sum() : 0L;
+    }
+
+    /**
+     * Sets the pool parallel workers run on. By default, a pool with one
+     * thread per worker is created on first use.
+     *
+     * @param forkJoinPool
+     */
+    public void setForkJoinPool(final ForkJoinPool forkJoinPool) {
+        if (this.ownsForkJoinPool && this.forkJoinPool != null)
+            this.forkJoinPool.shutdown();
+        this.forkJoinPool = forkJoinPool;
+        this.ownsForkJoinPool = false;
+    }
+
+    /**
+     * @return Iterations of every worker in the last parallel search,
+     * their sum is returned by getIterations()
+     */
+    public int[] getWorkerIterations() {
+        return this.workerIterations;
+    }
+
+    public boolean getStatelessNodes() {
+        return this.statelessNodes;
+    }
+
+    /**
+     * Switches between nodes that store a copy of their game state (default) and nodes
+     * that only store their move. Applies to the OBJECT tree backend.
+     *
+     * @param statelessNodes
+     */
+    public void setStatelessNodes(final boolean statelessNodes) {
+        this.statelessNodes = statelessNodes;
+    }
+
+    public TreeBackend getTreeBackend() {
+        return this.treeBackend;
+    }
+
+    public void setTreeBackend(final TreeBackend treeBackend) {
+        this.treeBackend = treeBackend;
+        if (treeBackend != TreeBackend.ARENA)
+            this.arena = null;
+    }
+
+    /**
+     * @return Number of tree nodes allocated by the last search
+     */
+    public int getLastNumNodes() {
+        return this.lastNumNodes;
+    }
+
+    /**
+     * Limits the object tree to the given number of nodes. When the limit is reached, the
+     * least-visited subtrees are pruned down to three quarters of it and the search goes on.
+     * Root-parallel searches split the budget over their trees.
+     *
+     * @param maxNodes
+     */
+    public void setNodeBudget(final int maxNodes) {
+        this.maxNodes = Math.max(2, maxNodes);
+        this.maxTreeBytes = 0L;
+    }
+
+    /**
+     * Limits the object tree to the given number of bytes, see setNodeBudget().
+     *
+     * @param maxTreeBytes
+     * @param extraBytesPerNode Bytes of Context and move list per node, on top of getBytesPerNode()
+     *                          (NodeModeExperiments measures the Context size of a game)
+     */
+    public void setMemoryBudget(final long maxTreeBytes, final long extraBytesPerNode) {
+        this.maxTreeBytes = maxTreeBytes;
+        this.extraBytesPerNode = Math.max(0L, extraBytesPerNode);
+        this.maxNodes = Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return Number of times the tree was pruned in the last search
+     */
+    public int getLastNumPrunes() {
+        return this.lastNumPrunes;
+    }
+
+    /**
+     * @return Largest number of nodes the tree held during the last search
+     */
+    public int getLastPeakNumNodes() {
+        return this.lastPeakNumNodes;
+    }
+
+    /**
+     * @return Estimated bytes of tree structure per node for the current backend,
+     * excluding the Context (if stored) and move list each node holds in both backends
+     */
+    public long getBytesPerNode() {
+        return (treeBackend == TreeBackend.ARENA) ?
+                NodeArena.bytesPerNode(lastNumPlayers) : objectBytesPerNode(lastNumPlayers);
+    }
+
+    private static long objectBytesPerNode(final int numPlayers) {
+        // mover, indexInParent, numProvenChildren, pathStamp, proven and the child arrays,
+        // plus one entry in the statistics and move arrays of the parent
+        return NodeArena.objectBytesPerNode(numPlayers) + 11 * 4 + 1 + 4 + 8 + 4;
+    }
+
+    /**
+     * @return Iterations per second of the last search
+     */
+    public double getIterationsPerSecond() {
+        return (lastSearchNanos > 0L) ? this.iterations * 1.0e9 / lastSearchNanos : 0.0;
+    }
+
+    public boolean getSolver() {
+        return this.solver;
+    }
+
+    /**
+     * Enables MCTS-Solver: wins and losses proven by terminal nodes are propagated up the
+     * tree, proven children are no longer selected and the search returns as soon as the
+     * root is proven. Applies to the sequential search of the OBJECT backend in two-player games.
+     *
+     * @param solver
+     */
+    public void setSolver(final boolean solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * @return Number of nodes proven by the solver in the last search
+     */
+    public int getLastNumSolvedNodes() {
+        return this.lastNumSolvedNodes;
+    }
+
+    /**
+     * @return True if the last search stopped because the solver proved the root
+     */
+    public boolean getLastRootSolved() {
+        return this.lastRootSolved;
+    }
+
+    /**
+     * @return Time the last search saved by stopping on a proven root, 0 if it was not proven
+     */
+    public double getLastSolverSavedSeconds() {
+        return lastRootSolved ? timeManager.getLastSavedSeconds() : 0.0;
+    }
+
+    public boolean getProgressiveWidening() {
+        return this.progressiveWidening;
+    }
+
+    /**
+     * Enables progressive widening: a node with n visits may have at most C * n^alpha
+     * children. New children are picked by the expansion policy, which thereby acts as the
+     * prior of the widening: random for the Vanilla agents, MAST or NST scores for the others.
+     * Applies to the sequential and root-parallel searches of the OBJECT backend.
+     *
+     * @param progressiveWidening
+     */
+    public void setProgressiveWidening(final boolean progressiveWidening) {
+        this.progressiveWidening = progressiveWidening;
+    }
+
+    /**
+     * @param wideningConstant C of progressive widening
+     * @param wideningExponent alpha of progressive widening, in (0, 1)
+     */
+    public void setWideningParameters(final double wideningConstant, final double wideningExponent) {
+        this.wideningConstant = wideningConstant;
+        this.wideningExponent = wideningExponent;
+    }
+
+    public double getWideningConstant() {
+        return this.wideningConstant;
+    }
+
+    public double getWideningExponent() {
+        return this.wideningExponent;
+    }
+
+    public boolean getProgressiveBias() {
+        return this.progressiveBias;
+    }
+
+    /**
+     * Enables progressive bias: a child gets a bias of weight * H / (n + 1) on its mean in
+     * BestChild, where H is the heuristic value of its state from the game metadata (Material
+     * and MobilitySimple if there is none) and n its visit count. H is evaluated once, when
+     * the child is created. Applies to the OBJECT backend.
+     *
+     * @param progressiveBias
+     * @param progressiveBiasWeight
+     */
+    public void setProgressiveBias(final boolean progressiveBias, final double progressiveBiasWeight) {
+        this.progressiveBias = progressiveBias;
+        this.progressiveBiasWeight = progressiveBiasWeight;
+    }
+
+    public double getProgressiveBiasWeight() {
+        return this.progressiveBiasWeight;
+    }
+
+    public int getPlayoutCutoff() {
+        return this.maxPlayoutActions;
+    }
+
+    /**
+     * Cuts playouts off after the given number of moves. The state a playout stops in is
+     * scored by the heuristics of the game (Material and MobilitySimple if there are none):
+     * for every player, its heuristic value minus that of the others, squashed into [-1, 1]
+     * with tanh. Applies to all backends and parallelisations.
+     *
+     * @param maxPlayoutActions Maximum number of moves of a playout, -1 plays every game out
+     */
+    public void setPlayoutCutoff(final int maxPlayoutActions) {
+        this.maxPlayoutActions = maxPlayoutActions;
+    }
+
+    public boolean getRave() {
+        return this.rave;
+    }
+
+    /**
+     * Enables RAVE: every node keeps all-moves-as-first (AMAF) statistics for the moves of its
+     * children, updated from the moves of the descent and the playout of every iteration, and
+     * BestChild blends them with the mean of a child with weight
+     * beta = sqrt(k / (3n + k)) for a child with n visits. Applies to the OBJECT backend,
+     * with one playout per iteration.
+     *
+     * @param rave
+     * @param raveEquivalence k of the beta schedule: the number of visits at which the
+     *                        child's own mean and its AMAF mean weigh about equally
+     */
+    public void setRave(final boolean rave, final double raveEquivalence) {
+        this.rave = rave;
+        this.raveEquivalence = raveEquivalence;
+    }
+
+    public double getRaveEquivalence() {
+        return this.raveEquivalence;
+    }
+
+    public boolean getTranspositions() {
+        return this.transpositions;
+    }
+
+    /**
+     * Enables sharing nodes of the same state (by Ludii's fullHash()) through a transposition
+     * table, so the tree becomes a DAG. Applies to the sequential search of the OBJECT backend;
+     * a DAG is not reused between turns, pruned or solved.
+     *
+     * @param transpositions
+     */
+    public void setTranspositions(final boolean transpositions) {
+        this.transpositions = transpositions;
+    }
+
+    public int getTranspositionTableSize() {
+        return this.transpositionTableSize;
+    }
+
+    /**
+     * Sets the maximum number of entries of the transposition table, rounded up to a power
+     * of two. Once full, entries of deep nodes make room for shallower ones.
+     *
+     * @param transpositionTableSize
+     */
+    public void setTranspositionTableSize(final int transpositionTableSize) {
+        this.transpositionTableSize = Math.max(1, transpositionTableSize);
+        this.transpositionTable = null;
+    }
+
+    /**
+     * @return Fraction of the transposition table lookups of the last search that found a node
+     */
+    public double getLastTranspositionHitRate() {
+        return (lastTranspositionLookups > 0L) ? (double) lastTranspositionHits / lastTranspositionLookups : 0.0;
+    }
+
+    /**
+     * @return Number of nodes the last search shared instead of allocating them
+     */
+    public long getLastTranspositionHits() {
+        return this.lastTranspositionHits;
+    }
+
+    /**
+     * @return Estimated bytes the last search saved by sharing nodes, net of the size of the
+     * transposition table. Uses the same estimate per node as setMemoryBudget().
+     */
+    public long getLastTranspositionBytesSaved() {
+        return this.lastTranspositionBytesSaved;
+    }
+
+    /**
+     * Playout lengths are not recorded by tree-parallel searches, and playouts from terminal
+     * nodes are not counted.
+     *
+     * @return Number of playouts of the last search of every length in moves, the last
+     * entry counting all playouts of at least that length
+     */
+    public int[] getLastPlayoutLengthHistogram() {
+        return this.lastPlayoutLengths.clone();
+    }
+
+    /**
+     * @return Average number of moves of the playouts of the last search
+     */
+    public double getLastAveragePlayoutLength() {
+        int numPlayouts = 0;
+        for (int count : lastPlayoutLengths) {
+            numPlayouts += count;
+        }
+        return (numPlayouts > 0) ? (double) lastNumPlayoutActions / numPlayouts : 0.0;
+    }
+
+    /**
+     * @param fraction In [0, 1], e.g. 0.5 for the median
+     * @return Smallest length that at least the given fraction of the playouts of the last
+     * search did not exceed
+     */
+    public int getLastPlayoutLengthPercentile(final double fraction) {
+        int numPlayouts = 0;
+        for (int count : lastPlayoutLengths) {
+            numPlayouts += count;
+        }
+        final long target = (long) Math.ceil(fraction * numPlayouts);
+        long numSeen = 0L;
+        for (int length = 0; length < lastPlayoutLengths.length; length++) {
+            numSeen += lastPlayoutLengths[length];
+            if (numSeen >= target && numSeen > 0L)
+                return length;
+        }
+        return 0;
+    }
+
+    /**
+     * @return Number of playouts of the last search that were cut off before the end of the game
+     */
+    public int getLastNumCutoffPlayouts() {
+        return this.lastNumCutoffPlayouts;
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Expansion and playout policy of one search of the tree, with the moves of the
+     * current descent if the expansion policy uses them
+     */
+    private static final class Worker {
+        private final ExpansionPolicy expansion;
+        private final PlayoutPolicy playout;
+        private final List<Move> history;
+
+        /** Statistics of the children of a node, gathered for the selection policy */
+        private int[] childIndices = new int[16];
+        private int[] childVisits = new int[16];
+        private double[] childScores = new double[16];
+
+        /** Transposition table of the running search, null if it searches a tree */
+        private TranspositionTable<Node> table = null;
+        /** Nodes of the current descent through the DAG, and the edge leading to each of them */
+        private Node[] path = new Node[64];
+        private int[] pathEdges = new int[64];
+        private int pathLength = 0;
+        /** Marks the nodes of the current descent, see Node.pathStamp */
+        private int pathStamp = 0;
+
+        /** Moves of the current playout and descent, for the AMAF statistics of RAVE */
+        private final MoveKeySet amafMoves = new MoveKeySet();
+        /** True if amafMoves holds the moves of the playout of the current iteration */
+        private boolean amafRecorded = false;
+
+        /** Playouts of the running search by length, see MCTSEngine.lastPlayoutLengths */
+        private final int[] playoutLengths = new int[PLAYOUT_LENGTH_BUCKETS + 1];
+        private int numPlayoutActions = 0;
+        private int numCutoffPlayouts = 0;
+
+        /** Depth of the node selected by the last Selection() or SelectionArena() */
+        private int selectionDepth = 0;
+        /** Selection depths and phase times of the running search, see SearchStatistics */
+        private long sumSelectionDepth = 0L;
+        private long numSelections = 0L;
+        private int maxSelectionDepth = 0;
+        private long selectionNanos = 0L;
+        private long playoutNanos = 0L;
+        private long backpropagationNanos = 0L;
+        /** System.nanoTime() of the first expansion of the running search, 0 if there was none */
+        private long firstExpansionTime = 0L;
+
+        private Worker(final ExpansionPolicy expansion, final PlayoutPolicy playout) {
+            this.expansion = expansion;
+            this.playout = playout;
+            this.history = expansion.usesHistory() ? new ArrayList<Move>() : null;
+        }
+
+        private void ensureCapacity(final int numChildren) {
+            if (numChildren > childIndices.length) {
+                childIndices = new int[numChildren];
+                childVisits = new int[numChildren];
+                childScores = new double[numChildren];
+            }
+        }
+
+        private void resetStatistics() {
+            Arrays.fill(playoutLengths, 0);
+            numPlayoutActions = 0;
+            numCutoffPlayouts = 0;
+            sumSelectionDepth = 0L;
+            numSelections = 0L;
+            maxSelectionDepth = 0;
+            selectionNanos = 0L;
+            playoutNanos = 0L;
+            backpropagationNanos = 0L;
+            firstExpansionTime = 0L;
+        }
+
+        private void addSelection(final int depth) {
+            sumSelectionDepth += depth;
+            numSelections++;
+            if (depth > maxSelectionDepth)
+                maxSelectionDepth = depth;
+        }
+
+        /**
+         * The time* methods end a phase that started at phaseStart
+         *
+         * @return Start of the next phase
+         */
+        private long timeSelection(final long phaseStart) {
+            final long now = System.nanoTime();
+            selectionNanos += now - phaseStart;
+            return now;
+        }
+
+        private long timePlayout(final long phaseStart) {
+            final long now = System.nanoTime();
+            playoutNanos += now - phaseStart;
+            return now;
+        }
+
+        private long timeBackpropagation(final long phaseStart) {
+            final long now = System.nanoTime();
+            backpropagationNanos += now - phaseStart;
+            return now;
+        }
+
+        /**
+         * @param playoutContext State at the end of a playout
+         * @param numMovesBefore Length of its trial before the playout
+         */
+        private void recordPlayout(final Context playoutContext, final int numMovesBefore) {
+            final int length = playoutContext.trial().moves().size() - numMovesBefore;
+            playoutLengths[Math.min(length, PLAYOUT_LENGTH_BUCKETS)]++;
+            numPlayoutActions += length;
+            if (!playoutContext.trial().over())
+                numCutoffPlayouts++;
+        }
+
+        private void startPath(final Node root) {
+            pathStamp++;
+            pathLength = 0;
+            extendPath(root, -1);
+        }
+
+        private void extendPath(final Node node, final int edge) {
+            if (pathLength == path.length) {
+                path = Arrays.copyOf(path, pathLength * 2);
+                pathEdges = Arrays.copyOf(pathEdges, pathLength * 2);
+            }
+            path[pathLength] = node;
+            pathEdges[pathLength] = edge;
+            pathLength++;
+            node.pathStamp = pathStamp;
+        }
+
+        private boolean onPath(final Node node) {
+            return node.pathStamp == pathStamp;
+        }
+    }
+
+    /**
+     * Inner class for nodes used by MCTS,
+     *
+     * @author Dennis Soemers
+     */
+    private static class Node {
+        /**
+         * Our parent node
+         */
+        private Node parent;
+
+        /**
+         * The move that led from parent to this node
+         */
+        private final Move moveFromParent;
+
+        /**
+         * This objects contains the game state for this node (this is why we don't support stochastic games).
+         * Null for stateless nodes, whose state is rebuilt from the root by replaying moves.
+         */
+        private Context context;
+
+        /**
+         * Visit count for this node
+         */
+        private int visitCount = 0;
+
+        /**
+         * For every player, sum of utilities / scores backpropagated through this node
+         */
+        private final double[] scoreSums;
+
+        /**
+         * Child nodes
+         */
+        private final List<Node> children = new ArrayList<Node>();
+
+        /**
+         * Visit counts and score sums (for the mover of this node) of the children, indexed like
+         * children and kept next to each other for the selection policy. Null until the first child is added.
+         */
+        private int[] childVisits = null;
+        private double[] childScores = null;
+
+        /**
+         * Moves of the edges to the children, which differ from moveFromParent of a child
+         * that was linked as a transposition
+         */
+        private Move[] childMoves = null;
+
+        /**
+         * Progressive bias of the children, null unless a bias has been set
+         */
+        private double[] childBias = null;
+
+        /**
+         * RAVE: AMAF visits and score sums (for the mover of this node) of the move of every
+         * child, with the key of that move. Null until the first AMAF update of the node.
+         */
+        private int[] amafVisits = null;
+        private double[] amafScores = null;
+        private long[] childMoveKeys = null;
+
+        /**
+         * Player to move in this node
+         */
+        private final int mover;
+
+        /**
+         * Index of this node in the children of its parent
+         */
+        private int indexInParent = -1;
+
+        /**
+         * MCTS-Solver: proven win or loss for the mover of the parent, UNPROVEN if the value is
+         * still open. The root stores its value for its own mover.
+         */
+        private byte proven = UNPROVEN;
+
+        /**
+         * Number of children with a proven value
+         */
+        private int numProvenChildren = 0;
+
+        /**
+         * Path stamp of the last DAG descent through this node
+         */
+        private int pathStamp = 0;
+
+        /**
+         * List of moves for which we did not yet create a child node,
+         * null until the node is first selected for expansion
+         */
+        private FastArrayList<Move> unexpandedMoves = null;
+
+        /**
+         * Constructor
+         *
+         * @param parent
+         * @param moveFromParent
+         * @param context
+         */
+        public Node(final Node parent, final Move moveFromParent, final Context context) {
+            this(parent, moveFromParent, context, true);
+        }
+
+        /**
+         * Constructor
+         *
+         * @param parent
+         * @param moveFromParent
+         * @param context State of the new node, only kept if storeContext is true
+         * @param storeContext
+         */
+        public Node(final Node parent, final Move moveFromParent, final Context context, final boolean storeContext) {
+            this.parent = parent;
+            this.moveFromParent = moveFromParent;
+            this.context = storeContext ? context : null;
+            this.mover = context.state().mover();
+            final Game game = context.game();
+            scoreSums = new double[game.players().count() + 1];
+
+            if (parent != null)
+                this.indexInParent = parent.addChild(this, moveFromParent);
+        }
+
+        /**
+         * Adds an edge to the given child, which is only the parent of the child if it
+         * was created for this node
+         *
+         * @return Index of the edge
+         */
+        private int addChild(final Node child, final Move move) {
+            final int numChildren = children.size();
+            if (childVisits == null) {
+                childVisits = new int[4];
+                childScores = new double[4];
+                childMoves = new Move[4];
+            } else if (numChildren >= childVisits.length) {
+                childVisits = Arrays.copyOf(childVisits, numChildren * 2);
+                childScores = Arrays.copyOf(childScores, numChildren * 2);
+                childMoves = Arrays.copyOf(childMoves, numChildren * 2);
+                if (childBias != null)
+                    childBias = Arrays.copyOf(childBias, numChildren * 2);
+                if (amafVisits != null) {
+                    amafVisits = Arrays.copyOf(amafVisits, numChildren * 2);
+                    amafScores = Arrays.copyOf(amafScores, numChildren * 2);
+                    childMoveKeys = Arrays.copyOf(childMoveKeys, numChildren * 2);
+                }
+            }
+            // the slot may hold statistics of a pruned child
+            childVisits[numChildren] = 0;
+            childScores[numChildren] = 0.0;
+            childMoves[numChildren] = move;
+            if (childBias != null)
+                childBias[numChildren] = 0.0;
+            if (amafVisits != null) {
+                amafVisits[numChildren] = 0;
+                amafScores[numChildren] = 0.0;
+                childMoveKeys[numChildren] = MoveKeys.key(move);
+            }
+            children.add(child);
+            return numChildren;
+        }
+
+        private void ensureAmaf() {
+            if (amafVisits != null)
+                return;
+            amafVisits = new int[childVisits.length];
+            amafScores = new double[childVisits.length];
+            childMoveKeys = new long[childVisits.length];
+            for (int i = 0; i < children.size(); i++) {
+                childMoveKeys[i] = MoveKeys.key(childMoves[i]);
+            }
+        }
+
+        /**
+         * @return Key of the move of the given child, cached once RAVE statistics exist
+         */
+        private long childMoveKey(final int index) {
+            return (childMoveKeys != null) ? childMoveKeys[index] : MoveKeys.key(childMoves[index]);
+        }
+
+        private void setChildBias(final int index, final double bias) {
+            if (childBias == null)
+                childBias = new double[childVisits.length];
+            childBias[index] = bias;
+        }
+
+    }
+
+    //-------------------------------------------------------------------------
+}
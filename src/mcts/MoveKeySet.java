@@ -0,0 +1,85 @@
+package mcts;
+
+import java.util.Arrays;
+
+/**
+ * Set of ({@link MoveKeys} key, mover) pairs played in one MCTS iteration, for the AMAF statistics
+ * of RAVE. Open addressing over primitive arrays, cleared in constant time by bumping a
+ * stamp, so recording the moves of a playout neither boxes nor allocates.
+ */
+final class MoveKeySet {
+
+    private long[] keys = new long[256];
+    private int[] stamps = new int[256];
+    private int mask = 255;
+    private int stamp = 1;
+    private int size = 0;
+
+    /**
+     * Removes all pairs
+     */
+    void clear() {
+        stamp++;
+        size = 0;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    void add(final long moveKey, final int mover) {
+        if (2 * (size + 1) > keys.length)
+            grow();
+        insert(pack(moveKey, mover));
+    }
+
+    boolean contains(final long moveKey, final int mover) {
+        final long key = pack(moveKey, mover);
+        int slot = slot(key);
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void insert(final long key) {
+        int slot = slot(key);
+        while (stamps[slot] == stamp) {
+            if (keys[slot] == key)
+                return;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        stamps[slot] = stamp;
+        size++;
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final int[] oldStamps = stamps;
+        final int oldStamp = stamp;
+        keys = new long[oldKeys.length * 2];
+        stamps = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        stamp = 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldStamp)
+                insert(oldKeys[i]);
+        }
+    }
+
+    private static long pack(final long moveKey, final int mover) {
+        return moveKey ^ (mover * 0xC2B2AE3D27D4EB4FL);
+    }
+
+    private int slot(final long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,90 @@
+package mcts;
+
+import main.collections.FastArrayList;
+import util.Move;
+import util.action.Action;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 64-bit keys of moves, for the move statistics of MAST, NST and RAVE.
+ *
+ * A key is derived from what the move does: its squares, levels, piece and mover, and the
+ * type, squares and piece of each of its actions. It therefore does not depend on
+ * hashCode() or on the Move instance, and is the same in every run. Moves only get the same
+ * key if they are the same move or by a 64-bit hash collision.
+ *
+ * Computing a key walks the actions of the move, so a playout should compute the keys of
+ * each legal move list once, with keys(), and take the key of the chosen move from the
+ * returned array. keys() remembers the Move instance each key was computed for and only
+ * reuses a key for that same instance at the same index, so keying a list again after
+ * moves were removed from it, or keying a new list, never returns a stale key. Every
+ * game.moves() call creates new Move instances, whose keys are computed again.
+ * Nodes of the tree keep the keys of their moves.
+ */
+public final class MoveKeys {
+
+    /** Keys of the last list passed to keys(), reused by every call */
+    private long[] keys = new long[64];
+    /** Move each entry of keys was computed for */
+    private Move[] keyedMoves = new Move[64];
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * @param move
+     * @return Key of the move
+     */
+    public static long key(final Move move) {
+        final List<Action> actions = move.actions();
+        final int numActions = (actions != null) ? actions.size() : 0;
+        // every step is a bijection of the hash, so moves that differ in one field never
+        // collide, and the full mix is only applied once at the end
+        long hash = step(numActions, ((long) move.from() << 32) | (move.to() & 0xFFFFFFFFL));
+        hash = step(hash, ((long) move.levelFrom() << 32) | (move.levelTo() & 0xFFFFFFFFL));
+        hash = step(hash, ((long) move.what() << 32) | (move.mover() & 0xFFFFFFFFL));
+        for (int i = 0; i < numActions; i++) {
+            final Action action = actions.get(i);
+            // class names are the same in every run, unlike the hashCode() of a class
+            hash = step(hash, ((long) action.getClass().getName().hashCode() << 32) | (action.what() & 0xFFFFFFFFL));
+            hash = step(hash, ((long) action.from() << 32) | (action.to() & 0xFFFFFFFFL));
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Computes the keys of all moves of a list
+     *
+     * @param moves
+     * @return Keys, indexed like the moves. The array is overwritten by the next call, and
+     * does not follow later changes of the list.
+     */
+    public long[] keys(final FastArrayList<Move> moves) {
+        final int numMoves = moves.size();
+        if (numMoves > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(numMoves, keys.length * 2));
+            keyedMoves = Arrays.copyOf(keyedMoves, keys.length);
+        }
+        for (int m = 0; m < numMoves; m++) {
+            final Move move = moves.get(m);
+            if (keyedMoves[m] != move) {
+                keys[m] = key(move);
+                keyedMoves[m] = move;
+            }
+        }
+        return keys;
+    }
+
+    //-------------------------------------------------------------------------
+
+    private static long step(final long hash, final long value) {
+        return (hash ^ value) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,175 @@
+package mcts;
+
+/**
+ * N-gram statistics of NST: the average playout result of every move, and of every sequence
+ * of up to maxGrams moves played before it followed by the move.
+ *
+ * All sequences are kept in one flat {@link MASTTable}. The key of a sequence is the key of
+ * its last move xor a rolling hash of the moves before it, so scoring a move is at most
+ * maxGrams + 1 probes. The moves played before the move being scored are kept in a ring
+ * buffer of the last maxGrams moves, whose rolling hashes are computed once per push().
+ *
+ * The table may be bounded to a number of entries. When it is full, sequences with fewer
+ * than minVisits visits, which do not count towards any score yet, are evicted first.
+ */
+public final class NGramTable {
+
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /** Longest move sequence (beyond the move itself) statistics are kept for */
+    private final int maxGrams;
+    /** Visits a sequence needs before it counts towards the score of a move */
+    private final int minVisits;
+
+    private final MASTTable table = new MASTTable();
+
+    /** Keys of the last maxGrams moves pushed, the latest at index (numPushed - 1) % maxGrams */
+    private final long[] recentKeys;
+    private int numPushed = 0;
+    /** contextHashes[j - 1]: rolling hash of the last j moves pushed */
+    private final long[] contextHashes;
+
+    public NGramTable(final int maxGrams, final int minVisits) {
+        this(maxGrams, minVisits, -1);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxGrams
+     * @param minVisits
+     * @param maxEntries Largest number of moves and sequences with statistics, -1 for no limit
+     */
+    public NGramTable(final int maxGrams, final int minVisits, final int maxEntries) {
+        this.maxGrams = maxGrams;
+        this.minVisits = minVisits;
+        this.recentKeys = new long[Math.max(1, maxGrams)];
+        this.contextHashes = new long[Math.max(1, maxGrams)];
+        table.setCapacity(maxEntries, minVisits);
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Forgets the moves pushed so far, to start scoring the moves of a new sequence
+     */
+    public void startSequence() {
+        numPushed = 0;
+    }
+
+    /**
+     * Adds a move to the moves the next scored moves are played after
+     *
+     * @param moveKey
+     */
+    public void push(final long moveKey) {
+        if (maxGrams == 0)
+            return;
+        recentKeys[numPushed % maxGrams] = moveKey;
+        numPushed++;
+        long hash = 0L;
+        for (int j = 1; j <= numContexts(); j++) {
+            hash = combine(hash, recentKeys[(numPushed - j) % maxGrams], j);
+            contextHashes[j - 1] = hash;
+        }
+    }
+
+    /**
+     * @param moveKey
+     * @param mover
+     * @return Average result for the mover of the move and of the sequences ending in it that
+     * match the pushed moves and have at least minVisits visits, Double.MAX_VALUE for a
+     * move without statistics
+     */
+    public double score(final long moveKey, final int mover) {
+        int slot = table.find(moveKey);
+        if (slot < 0)
+            return Double.MAX_VALUE;
+        double scoreSum = table.meanScore(slot, mover);
+        int numScores = 1;
+        final int numContexts = numContexts();
+        for (int j = 0; j < numContexts; j++) {
+            slot = table.find(moveKey ^ contextHashes[j]);
+            if (slot < 0 || table.visits(slot) < minVisits)
+                break;
+            scoreSum += table.meanScore(slot, mover);
+            numScores++;
+        }
+        return scoreSum / numScores;
+    }
+
+    /**
+     * Adds a playout result to the statistics of every move of the playout and of every
+     * sequence of up to maxGrams playout moves before it followed by it
+     *
+     * @param moveKeys Keys of the moves of the playout, in the order they were played
+     * @param numMoves
+     * @param results Utilities of all players
+     */
+    public void update(final long[] moveKeys, final int numMoves, final double[] results) {
+        for (int i = 0; i < numMoves; ++i) {
+            table.update(moveKeys[i], results);
+            long hash = 0L;
+            for (int j = 1; j <= maxGrams && j <= i; j++) {
+                hash = combine(hash, moveKeys[i - j], j);
+                table.update(moveKeys[i] ^ hash, results);
+            }
+        }
+    }
+
+    /**
+     * Removes all statistics and resets the counters
+     */
+    public void clear() {
+        table.clear();
+        numPushed = 0;
+    }
+
+    /**
+     * @return Number of moves and sequences with statistics
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * @return Largest number of entries, -1 if the table is unbounded
+     */
+    public int capacity() {
+        return table.capacity();
+    }
+
+    /**
+     * @return Fraction of the capacity in use, 0 if the table is unbounded
+     */
+    public double occupancy() {
+        return table.occupancy();
+    }
+
+    /**
+     * @return Number of entries evicted since the last clear()
+     */
+    public long numEvictions() {
+        return table.numEvictions();
+    }
+
+    /**
+     * @return Fraction of the lookups of moves and sequences since the last clear() that found statistics
+     */
+    public double hitRate() {
+        return table.hitRate();
+    }
+
+    //-------------------------------------------------------------------------
+
+    private int numContexts() {
+        return Math.min(numPushed, maxGrams);
+    }
+
+    /**
+     * @return Rolling hash of the j last moves, given that of the j - 1 last moves and the key of the j-th last move
+     */
+    private static long combine(final long hash, final long moveKey, final int j) {
+        return (hash ^ moveKey) * MIX + j;
+    }
+}
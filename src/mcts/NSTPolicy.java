@@ -0,0 +1,141 @@
+package mcts;
+
+import game.Game;
+import main.collections.FastArrayList;
+import util.Context;
+import util.Move;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * N-gram Selection Technique: like {@link MASTPolicy}, but a move is scored by the average
+ * result of the move itself and of the move sequences of up to maxGrams moves ending in it,
+ * given the moves played before it. Longer sequences only count once they have been seen
+ * minVisits times. The statistics are kept in an {@link NGramTable}, optionally bounded,
+ * and reset every search.
+ */
+public final class NSTPolicy implements ExpansionPolicy, PlayoutPolicy {
+
+    /** Probability of picking a uniformly random move */
+    private final double eps;
+    /** Longest move sequence (beyond the move itself) statistics are kept for */
+    private final int maxGrams;
+    /** Visits a sequence needs before it counts towards the score of a move */
+    private final int minVisits;
+    /** Largest number of moves and sequences with statistics, -1 for no limit */
+    private final int maxEntries;
+
+    private final NGramTable grams;
+    private final MoveKeys moveKeys = new MoveKeys();
+    /** Key of the move picked by the last call of selectMove() */
+    private long selectedMoveKey = 0L;
+
+    /** Keys of the moves of the running playout, reused by every playout of this policy */
+    private long[] historyKeys = new long[256];
+
+    public NSTPolicy(final double eps, final int maxGrams, final int minVisits) {
+        this(eps, maxGrams, minVisits, -1);
+    }
+
+    public NSTPolicy(final double eps, final int maxGrams, final int minVisits, final int maxEntries) {
+        this.eps = eps;
+        this.maxGrams = maxGrams;
+        this.minVisits = minVisits;
+        this.maxEntries = maxEntries;
+        this.grams = new NGramTable(maxGrams, minVisits, maxEntries);
+    }
+
+    //-------------------------------------------------------------------------
+
+    @Override
+    public void startSearch() {
+        grams.clear();
+    }
+
+    @Override
+    public NSTPolicy forWorker() {
+        return new NSTPolicy(eps, maxGrams, minVisits, maxEntries);
+    }
+
+    /**
+     * @return Statistics of the policy, with their size and counters
+     */
+    public NGramTable getNGramTable() {
+        return grams;
+    }
+
+    @Override
+    public boolean usesHistory() {
+        return true;
+    }
+
+    @Override
+    public int select(final FastArrayList<Move> unexpandedMoves, final Context context, final List<Move> history) {
+        // only the last maxGrams moves of the descent can match a sequence
+        grams.startSequence();
+        for (int i = Math.max(0, history.size() - maxGrams); i < history.size(); i++) {
+            grams.push(MoveKeys.key(history.get(i)));
+        }
+        return selectMove(unexpandedMoves, context.state().mover());
+    }
+
+    @Override
+    public double[] playout(final Context context, final int maxNumActions, final HeuristicEvaluator evaluator) {
+        final Game game = context.game();
+
+        // the moves are applied to the given context itself, only their keys are kept
+        grams.startSequence();
+        int numMoves = 0;
+        while (!context.trial().over() && (maxNumActions < 0 || numMoves < maxNumActions)){
+            final FastArrayList<Move> legalMoves = game.moves(context).moves();
+            final int bestMoveIndex = selectMove(legalMoves, context.state().mover());
+
+            if (numMoves == historyKeys.length)
+                historyKeys = Arrays.copyOf(historyKeys, numMoves * 2);
+            final long moveKey = selectedMoveKey;
+            historyKeys[numMoves++] = moveKey;
+            grams.push(moveKey);
+            game.apply(context, legalMoves.get(bestMoveIndex));
+        }
+
+        double[] results = PlayoutPolicy.result(context, evaluator);
+        grams.update(historyKeys, numMoves, results);
+        return results;
+    }
+
+    /**
+     * Epsilon-greedy choice on the N-gram score of the moves for the mover, given the moves
+     * pushed to the N-gram table; ties are broken uniformly at random. Also sets selectedMoveKey.
+     */
+    private int selectMove(final FastArrayList<Move> moves, final int mover) {
+        final double p = ThreadLocalRandom.current().nextDouble(1d);
+        if (p <= eps){   // Explore
+            final int r = ThreadLocalRandom.current().nextInt(moves.size());
+            selectedMoveKey = MoveKeys.key(moves.get(r));
+            return r;
+        }
+
+        // Exploit
+        int bestMoveIndex = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int numBestFound = 0;
+        final long[] keys = moveKeys.keys(moves);
+
+        for (int m = 0; m < moves.size(); m++) {
+            final double moveScore = grams.score(keys[m], mover);
+
+            if (moveScore > bestScore) {
+                bestScore = moveScore;
+                bestMoveIndex = m;
+                numBestFound = 1;
+            } else if (moveScore == bestScore &&
+                    ThreadLocalRandom.current().nextInt() % ++numBestFound == 0) {
+                bestMoveIndex = m;
+            }
+        }
+        selectedMoveKey = keys[bestMoveIndex];
+        return bestMoveIndex;
+    }
+}
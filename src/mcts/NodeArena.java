@@ -0,0 +1,164 @@
+package mcts;
+
+import main.collections.FastArrayList;
+import util.Context;
+import util.Move;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for an MCTS tree.
+ *
+ * Every node is an int index into a set of parallel primitive arrays instead of an object,
+ * so a search allocates a handful of large arrays rather than millions of small nodes.
+ * Children are kept as a singly linked sibling list in insertion order, which means they
+ * are visited in exactly the same order as the children list of the object tree.
+ */
+final class NodeArena {
+
+    /** Index used for "no node" (no parent, no child, no sibling) */
+    static final int NONE = -1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /** Number of score entries per node (players + 1, index 0 is unused by Ludii) */
+    final int numScores;
+
+    /** Number of nodes currently allocated */
+    int size = 0;
+
+    int[] parent;
+    int[] firstChild;
+    int[] lastChild;
+    int[] nextSibling;
+    int[] visitCount;
+
+    /** For every node and player, sum of utilities: scoreSums[node * numScores + player] */
+    double[] scoreSums;
+
+    Move[] moveFromParent;
+    Context[] context;
+    /** Moves without a child node yet, null until the node is first selected for expansion */
+    FastArrayList<Move>[] unexpandedMoves;
+
+    NodeArena(final int numPlayers) {
+        this(numPlayers, DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    NodeArena(final int numPlayers, final int initialCapacity) {
+        this.numScores = numPlayers + 1;
+        final int capacity = Math.max(16, initialCapacity);
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        lastChild = new int[capacity];
+        nextSibling = new int[capacity];
+        visitCount = new int[capacity];
+        scoreSums = new double[capacity * numScores];
+        moveFromParent = new Move[capacity];
+        context = new Context[capacity];
+        unexpandedMoves = (FastArrayList<Move>[]) new FastArrayList[capacity];
+    }
+
+    /**
+     * Allocates a new node and appends it as last child of the given parent.
+     *
+     * @param parentNode
+     * @param move
+     * @param nodeContext
+     * @param legalMoves Legal moves of the node, or null to generate them on first expansion
+     * @return Index of the new node
+     */
+    int allocate(final int parentNode, final Move move, final Context nodeContext, final FastArrayList<Move> legalMoves) {
+        if (size == parent.length)
+            grow();
+
+        final int node = size++;
+        parent[node] = parentNode;
+        firstChild[node] = NONE;
+        lastChild[node] = NONE;
+        nextSibling[node] = NONE;
+        visitCount[node] = 0;
+        Arrays.fill(scoreSums, node * numScores, (node + 1) * numScores, 0.0);
+        moveFromParent[node] = move;
+        context[node] = nodeContext;
+        unexpandedMoves[node] = legalMoves;
+
+        if (parentNode != NONE) {
+            if (firstChild[parentNode] == NONE)
+                firstChild[parentNode] = node;
+            else
+                nextSibling[lastChild[parentNode]] = node;
+            lastChild[parentNode] = node;
+        }
+
+        return node;
+    }
+
+    /**
+     * Forgets all nodes but keeps the arrays, so the next search does not reallocate them.
+     */
+    void clear() {
+        // drop references so Contexts of the previous search can be collected
+        Arrays.fill(moveFromParent, 0, size, null);
+        Arrays.fill(context, 0, size, null);
+        Arrays.fill(unexpandedMoves, 0, size, null);
+        size = 0;
+    }
+
+    int capacity() {
+        return parent.length;
+    }
+
+    private void grow() {
+        final int newCapacity = parent.length + (parent.length >> 1);
+        parent = Arrays.copyOf(parent, newCapacity);
+        firstChild = Arrays.copyOf(firstChild, newCapacity);
+        lastChild = Arrays.copyOf(lastChild, newCapacity);
+        nextSibling = Arrays.copyOf(nextSibling, newCapacity);
+        visitCount = Arrays.copyOf(visitCount, newCapacity);
+        scoreSums = Arrays.copyOf(scoreSums, newCapacity * numScores);
+        moveFromParent = Arrays.copyOf(moveFromParent, newCapacity);
+        context = Arrays.copyOf(context, newCapacity);
+        unexpandedMoves = Arrays.copyOf(unexpandedMoves, newCapacity);
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Bytes used by the tree structure of one arena node, assuming compressed oops.
+     * Excludes the Context, Move and legal move list, which both backends store alike.
+     *
+     * @param numPlayers
+     * @return
+     */
+    static long bytesPerNode(final int numPlayers) {
+        // 5 int columns, 3 reference columns and one score per player (+1)
+        return 5 * 4 + 3 * 4 + 8L * (numPlayers + 1);
+    }
+
+    /**
+     * Bytes used by the tree structure of one node in the object backend, assuming
+     * compressed oops and the usual HotSpot layout (12 byte headers, 8 byte alignment).
+     * Excludes the Context, Move and legal move list, which both backends store alike,
+     * and the children backing arrays, which only inner nodes allocate.
+     *
+     * @param numPlayers
+     * @return
+     */
+    static long objectBytesPerNode(final int numPlayers) {
+        // Node: header + 7 fields, padded
+        final long node = align(12 + 7 * 4);
+        // scoreSums array
+        final long scores = align(16 + 8L * (numPlayers + 1));
+        // children ArrayList object
+        final long children = align(12 + 3 * 4);
+        // slot in the parent's children array
+        final long parentSlot = 4;
+        return node + scores + children + parentSlot;
+    }
+
+    private static long align(final long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
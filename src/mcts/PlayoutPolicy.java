@@ -0,0 +1,77 @@
+package mcts;
+
+import game.Game;
+import util.Context;
+import utils.AIUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Playout policy of {@link MCTSEngine}: plays a game out from a leaf of the tree.
+ */
+public interface PlayoutPolicy {
+
+    /**
+     * Plays the given state out until the game is over, or until maxNumActions moves have
+     * been played. The engine passes a copy of the state of the selected node, so the policy
+     * may apply its moves in place.
+     *
+     * @param context Non-terminal state
+     * @param maxNumActions Maximum number of moves to play, -1 for no limit
+     * @param evaluator Scores the state of a playout that was cut off, may be null if there
+     * is no limit
+     * @return Utilities of all players at the end of the playout, which will all be
+     * values in [-1.0, 1.0]
+     */
+    double[] playout(Context context, int maxNumActions, HeuristicEvaluator evaluator);
+
+    /**
+     * Called before every search
+     */
+    default void startSearch() {
+    }
+
+    /**
+     * @return Policy for a parallel worker of the search, this policy itself if it has no
+     * state that workers could race on
+     */
+    default PlayoutPolicy forWorker() {
+        return this;
+    }
+
+    /**
+     * @param context State at the end of a playout
+     * @param evaluator
+     * @return Utilities if the game is over, the heuristic values of the players otherwise
+     */
+    static double[] result(final Context context, final HeuristicEvaluator evaluator) {
+        if (context.trial().over())
+            return AIUtils.utilities(context);
+        return evaluator.utilities(context);
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Uniformly random playouts, run by Ludii's own playout implementation
+     */
+    final class Random implements PlayoutPolicy {
+        @Override
+        public double[] playout(final Context context, final int maxNumActions, final HeuristicEvaluator evaluator) {
+            final Game game = context.game();
+            game.playout
+                    (
+                            context,
+                            null,
+                            -1.0,
+                            null,
+                            null,
+                            0,
+                            maxNumActions,
+                            0.f,
+                            ThreadLocalRandom.current()
+                    );
+            return PlayoutPolicy.result(context, evaluator);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package mcts;
+
+import Group12.UCBKernel;
+
+/**
+ * Tree policy of {@link MCTSEngine}: picks the child to descend into among the expanded
+ * children of a node.
+ *
+ * The statistics of the children are passed contiguously, as the engine keeps them in
+ * their parent. Score sums are from the point of view of the player to move in the parent.
+ * Policies must not keep state of their own, as parallel searches call one instance from
+ * several threads.
+ */
+public interface SelectionPolicy {
+
+    /**
+     * @param childScores Score sums of the children, for the player to move in the parent
+     * @param childVisits Visit counts of the children, all positive
+     * @param numChildren Number of children, the arrays may be longer
+     * @param parentVisits Visit count of the parent
+     * @return Index of the selected child
+     */
+    int select(double[] childScores, int[] childVisits, int numChildren, int parentVisits);
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * UCT: mean + C * sqrt(log(parent visits) / visits)
+     */
+    final class UCT implements SelectionPolicy {
+        private final double C;
+
+        public UCT(final double C) {
+            this.C = C;
+        }
+
+        @Override
+        public int select(final double[] childScores, final int[] childVisits, final int numChildren,
+                          final int parentVisits) {
+            final double exploration = C * Math.sqrt(Math.log(parentVisits));
+            return UCBKernel.selectUCT(childScores, childVisits, numChildren, 1.0, exploration, null, false);
+        }
+    }
+
+    /**
+     * UCB1-Tuned, which bounds the exploration term by the variance of the rewards of a child
+     */
+    final class UCB1Tuned implements SelectionPolicy {
+        @Override
+        public int select(final double[] childScores, final int[] childVisits, final int numChildren,
+                          final int parentVisits) {
+            return UCBKernel.selectUCB1Tuned(childScores, childVisits, numChildren, Math.log(parentVisits), false);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package mcts;
+
+import java.util.Arrays;
+
+/**
+ * Transposition table mapping Ludii state hashes to the nodes of an MCTS DAG.
+ *
+ * Open addressing over primitive key arrays: a key is looked up in a short window of
+ * slots starting at its hash, so the table never grows beyond the size it was created
+ * with. When the window of a new key is full, the entry of the deepest node in it is
+ * replaced, as transpositions close to the root save the largest subtrees.
+ *
+ * @param <V> Node type
+ */
+final class TranspositionTable<V> {
+
+    /** Number of slots a key may be stored in, starting at its home slot */
+    private static final int PROBE_WINDOW = 8;
+
+    private final int mask;
+    private final long[] keys;
+    private final int[] depths;
+    private final Object[] values;
+
+    /** Number of entries in the table */
+    int size = 0;
+
+    /** Counters since the last clear() */
+    long numLookups = 0L;
+    long numHits = 0L;
+    long numReplacements = 0L;
+
+    /**
+     * @param maxEntries Maximum number of entries, rounded up to a power of two
+     */
+    TranspositionTable(final int maxEntries) {
+        final int capacity = Integer.highestOneBit(Math.max(PROBE_WINDOW, maxEntries - 1) << 1);
+        mask = capacity - 1;
+        keys = new long[capacity];
+        depths = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * @param key
+     * @return Node stored for the key, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(final long key) {
+        numLookups++;
+        int slot = homeSlot(key);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            final Object value = values[slot];
+            if (value != null && keys[slot] == key) {
+                numHits++;
+                return (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Stores a node for a key that is not in the table yet.
+     *
+     * @param key
+     * @param value
+     * @param depth Depth of the node, deeper entries are replaced first
+     */
+    void put(final long key, final V value, final int depth) {
+        int slot = homeSlot(key);
+        int replaceSlot = -1;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            if (values[slot] == null) {
+                keys[slot] = key;
+                depths[slot] = depth;
+                values[slot] = value;
+                size++;
+                return;
+            }
+            if (replaceSlot == -1 || depths[slot] > depths[replaceSlot])
+                replaceSlot = slot;
+            slot = (slot + 1) & mask;
+        }
+
+        // the window is full: keep the shallower nodes
+        if (depths[replaceSlot] >= depth) {
+            keys[replaceSlot] = key;
+            depths[replaceSlot] = depth;
+            values[replaceSlot] = value;
+            numReplacements++;
+        }
+    }
+
+    /**
+     * Removes all entries and resets the counters, keeping the arrays
+     */
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        numLookups = 0L;
+        numHits = 0L;
+        numReplacements = 0L;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return Bytes of the table arrays, assuming compressed oops
+     */
+    long bytes() {
+        return (long) keys.length * (8 + 4 + 4);
+    }
+
+    private int homeSlot(final long key) {
+        // Fibonacci hashing spreads the bits of the Zobrist hash over the index
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,12 @@
+package mcts;
+
+/**
+ * Storage backends for the search tree of an MCTS agent.
+ *
+ * OBJECT allocates one Node object (with its own score array and child list) per node,
+ * ARENA keeps all nodes in one growable set of primitive arrays, see {@link NodeArena}.
+ */
+public enum TreeBackend {
+    OBJECT,
+    ARENA
+}
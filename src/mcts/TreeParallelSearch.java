@@ -0,0 +1,331 @@
+package mcts;
+
+import Group12.TimeManager;
+import game.Game;
+import main.collections.FastArrayList;
+import util.Context;
+import util.Move;
+import utils.AIUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tree parallelisation: several workers descend and update one shared tree.
+ *
+ * Workers add a virtual loss to every node on their path in BestChild, so concurrent
+ * descents spread over different children. Statistics are updated with atomic
+ * increments and CAS loops instead of plain field writes. Expansion is lock-free:
+ * every node shuffles its legal moves once, and a worker claims the next move with an
+ * atomic counter, so each move is expanded exactly once and its child is published in
+ * its own slot of the children array. Expansion is therefore always in random order,
+ * whatever the expansion policy of the engine is.
+ */
+final class TreeParallelSearch {
+
+    /** Policies of the engine, every worker runs its own copy of the playout policy */
+    private final SelectionPolicy selection;
+    private final PlayoutPolicy playout;
+    private final FinalMoveSelection finalMoveSelection;
+    /** Utility that every in-flight descent through a node counts with (as a loss) */
+    private final double virtualLoss;
+    /** Maximum number of moves of a playout (-1 for no limit), and the evaluator of cut off playouts */
+    private final int maxPlayoutActions;
+    private final HeuristicEvaluator evaluator;
+
+    /** Contention counters of the last search */
+    final LongAdder casRetries = new LongAdder();
+    final LongAdder virtualLossCollisions = new LongAdder();
+    final LongAdder expansionWaits = new LongAdder();
+
+    /** Statistics of the last search */
+    int[] workerIterations = new int[0];
+    int numNodes = 0;
+    private final AtomicInteger nodeCounter = new AtomicInteger();
+
+    TreeParallelSearch(final SelectionPolicy selection, final PlayoutPolicy playout,
+                       final FinalMoveSelection finalMoveSelection, final double virtualLoss,
+                       final int maxPlayoutActions, final HeuristicEvaluator evaluator) {
+        this.selection = selection;
+        this.playout = playout;
+        this.finalMoveSelection = finalMoveSelection;
+        this.virtualLoss = virtualLoss;
+        this.maxPlayoutActions = maxPlayoutActions;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Searches one shared tree with numWorkers workers on the given pool.
+     *
+     * @param context Root state
+     * @param pool
+     * @param numWorkers
+     * @param timeManager Running search of the engine, whose deadline every worker checks
+     * @param maxIts Iteration limit over all workers together
+     * @param interrupted Checked every iteration to respect the GUI pause button
+     * @return Best move by the final move selection policy
+     */
+    Move search(final Context context, final ForkJoinPool pool, final int numWorkers,
+                final TimeManager timeManager, final int maxIts, final BooleanSupplier interrupted) {
+        casRetries.reset();
+        virtualLossCollisions.reset();
+        expansionWaits.reset();
+        nodeCounter.set(1);
+
+        final SharedNode root = new SharedNode(null, null, context);
+        final AtomicInteger iterationsLeft = new AtomicInteger(maxIts);
+        final int[] iterationsPerWorker = new int[numWorkers];
+
+        final List<Callable<Void>> workers = new ArrayList<>(numWorkers);
+        for (int w = 0; w < numWorkers; w++) {
+            final int worker = w;
+            final PlayoutPolicy workerPlayout = (worker == 0) ? playout : playout.forWorker();
+            workers.add(() -> {
+                final Scratch scratch = new Scratch();
+                int numIterations = 0;
+                while (timeManager.continueParallelSearch(numIterations) &&
+                        !interrupted.getAsBoolean() &&
+                        (maxIts == Integer.MAX_VALUE || iterationsLeft.getAndDecrement() > 0)) {
+                    final SharedNode selectedNode = selection(root, scratch);
+                    final double[] result = playOut(selectedNode.context, workerPlayout);
+                    backpropagation(selectedNode, result);
+                    numIterations++;
+                }
+                iterationsPerWorker[worker] = numIterations;
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : pool.invokeAll(workers)) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tree-parallel search was interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Tree-parallel search failed", e.getCause());
+        }
+
+        workerIterations = iterationsPerWorker;
+        numNodes = nodeCounter.get();
+        return finalMoveSelection(root);
+    }
+
+    //-------------------------------------------------------------------------
+
+    private SharedNode selection(SharedNode currentNode, final Scratch scratch) {
+        while (true) {
+            if (currentNode.context.trial().over()) {
+                // We've reached a terminal state
+                break;
+            }
+
+            final SharedNode expandedNode = expand(currentNode);
+            if (expandedNode != null) {
+                // We've expanded a new node, time for playout!
+                currentNode = expandedNode;
+                break;
+            }
+
+            final SharedNode bestChild = bestChild(currentNode, scratch);
+            if (bestChild == null) {
+                // all moves are claimed, but no child has been published yet: play out from here
+                expansionWaits.increment();
+                break;
+            }
+            currentNode = bestChild;
+        }
+        return currentNode;
+    }
+
+    /**
+     * @return A newly expanded child, or null if all moves of the node have been claimed
+     */
+    private SharedNode expand(final SharedNode currentNode) {
+        // claim the next unexpanded move, every index is handed out exactly once
+        if (currentNode.numClaimed.get() >= currentNode.legalMoves.length)
+            return null;
+        final int index = currentNode.numClaimed.getAndIncrement();
+        if (index >= currentNode.legalMoves.length)
+            return null;
+
+        final Move move = currentNode.legalMoves[index];
+
+        final Context context = new Context(currentNode.context);
+        context.game().apply(context, move);
+
+        // the new child carries the virtual loss of the descent that created it
+        final SharedNode child = new SharedNode(currentNode, move, context);
+        currentNode.children.set(index, child);
+        nodeCounter.incrementAndGet();
+        return child;
+    }
+
+    private SharedNode bestChild(final SharedNode currentNode, final Scratch scratch) {
+        final int mover = currentNode.context.state().mover();
+        final int numClaimed = Math.min(currentNode.numClaimed.get(), currentNode.legalMoves.length);
+        scratch.ensureCapacity(numClaimed);
+
+        // gather the published children, in-flight descents counting as visits that were lost
+        int numChildren = 0;
+        for (int i = 0; i < numClaimed; i++) {
+            final SharedNode child = currentNode.children.get(i);
+            if (child == null)
+                continue;
+
+            final int childVirtualLosses = child.virtualLosses;
+            scratch.children[numChildren] = child;
+            scratch.childVisits[numChildren] = child.visitCount + childVirtualLosses;
+            scratch.childScores[numChildren] = child.scoreSum(mover) - childVirtualLosses * virtualLoss;
+            numChildren++;
+        }
+        if (numChildren == 0)
+            return null;
+
+        final int parentVisits = currentNode.visitCount + currentNode.virtualLosses;
+        final SharedNode bestChild = scratch.children[
+                selection.select(scratch.childScores, scratch.childVisits, numChildren, parentVisits)];
+
+        if (bestChild.virtualLosses > 0)
+            virtualLossCollisions.increment();
+        SharedNode.VIRTUAL_LOSSES.incrementAndGet(bestChild);
+        return bestChild;
+    }
+
+    private double[] playOut(final Context context, final PlayoutPolicy policy) {
+        if (context.trial().over())
+            return AIUtils.utilities(context);
+        // Run a playout if we don't already have a terminal game state in node
+        return policy.playout(new Context(context), maxPlayoutActions, evaluator);
+    }
+
+    private void backpropagation(SharedNode currentNode, final double[] result) {
+        while (currentNode != null) {
+            for (int player = 0; player < result.length; player++) {
+                currentNode.addScore(player, result[player], casRetries);
+            }
+            SharedNode.VISIT_COUNT.incrementAndGet(currentNode);
+            // the root never receives a virtual loss
+            if (currentNode.parent != null)
+                SharedNode.VIRTUAL_LOSSES.decrementAndGet(currentNode);
+            currentNode = currentNode.parent;
+        }
+    }
+
+    private Move finalMoveSelection(final SharedNode root) {
+        final int mover = root.context.state().mover();
+        final int numClaimed = Math.min(root.numClaimed.get(), root.legalMoves.length);
+        final SharedNode[] children = new SharedNode[numClaimed];
+        final int[] childVisits = new int[numClaimed];
+        final double[] childScores = new double[numClaimed];
+
+        int numChildren = 0;
+        for (int i = 0; i < numClaimed; ++i) {
+            final SharedNode child = root.children.get(i);
+            if (child == null)
+                continue;
+            children[numChildren] = child;
+            childVisits[numChildren] = child.visitCount;
+            childScores[numChildren] = child.scoreSum(mover);
+            numChildren++;
+        }
+
+        final int bestChild = finalMoveSelection.select(childScores, childVisits, numChildren);
+        // without a visited child, the shuffled legal moves give a uniformly random one
+        return (bestChild >= 0) ? children[bestChild].moveFromParent : root.legalMoves[0];
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Children statistics of one node, gathered by a worker for the selection policy
+     */
+    private static final class Scratch {
+        private SharedNode[] children = new SharedNode[16];
+        private int[] childVisits = new int[16];
+        private double[] childScores = new double[16];
+
+        void ensureCapacity(final int numChildren) {
+            if (numChildren > children.length) {
+                children = new SharedNode[numChildren];
+                childVisits = new int[numChildren];
+                childScores = new double[numChildren];
+            }
+        }
+    }
+
+    /**
+     * Node of the shared tree
+     */
+    private static final class SharedNode {
+        static final AtomicIntegerFieldUpdater<SharedNode> VISIT_COUNT =
+                AtomicIntegerFieldUpdater.newUpdater(SharedNode.class, "visitCount");
+        static final AtomicIntegerFieldUpdater<SharedNode> VIRTUAL_LOSSES =
+                AtomicIntegerFieldUpdater.newUpdater(SharedNode.class, "virtualLosses");
+
+        private final SharedNode parent;
+        private final Move moveFromParent;
+        private final Context context;
+
+        /** Completed visits through this node */
+        private volatile int visitCount = 0;
+        /** Descents through this node that have not been backpropagated yet */
+        private volatile int virtualLosses;
+
+        /** For every player, sum of utilities, stored as raw double bits */
+        private final AtomicLongArray scoreSums;
+
+        /** Legal moves in random order, expanded from first to last */
+        private final Move[] legalMoves;
+        /** Number of legal moves claimed for expansion */
+        private final AtomicInteger numClaimed = new AtomicInteger();
+        /** Child for every legal move, null until it has been expanded */
+        private final AtomicReferenceArray<SharedNode> children;
+
+        SharedNode(final SharedNode parent, final Move moveFromParent, final Context context) {
+            this.parent = parent;
+            this.moveFromParent = moveFromParent;
+            this.context = context;
+            this.virtualLosses = (parent != null) ? 1 : 0;
+            final Game game = context.game();
+            scoreSums = new AtomicLongArray(game.players().count() + 1);
+
+            // shuffling once gives the same distribution as removing random unexpanded moves
+            final FastArrayList<Move> moves = game.moves(context).moves();
+            legalMoves = new Move[moves.size()];
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < legalMoves.length; i++) {
+                final int j = random.nextInt(i + 1);
+                legalMoves[i] = legalMoves[j];
+                legalMoves[j] = moves.get(i);
+            }
+            children = new AtomicReferenceArray<>(legalMoves.length);
+        }
+
+        double scoreSum(final int player) {
+            return Double.longBitsToDouble(scoreSums.get(player));
+        }
+
+        void addScore(final int player, final double value, final LongAdder casRetries) {
+            while (true) {
+                final long bits = scoreSums.get(player);
+                final long newBits = Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + value);
+                if (scoreSums.compareAndSet(player, bits, newBits))
+                    return;
+                casRetries.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package Group12;
+
+/**
+ * Checks of the limits of {@link TimeManager}, without a game: a loop of empty iterations
+ * stands in for the search. Run with assertions enabled or not, a failed check throws.
+ */
+public class TimeManagerTest {
+
+    public static void main(final String[] args) throws InterruptedException {
+        shortTimeLimitEndsSearch();
+        timeLimitEndsEverySearch();
+        iterationLimitEndsSearch();
+        timeLimitEndsParallelSearch();
+        System.out.println("TimeManagerTest passed");
+    }
+
+    /**
+     * A 50 ms search must stop soon after its deadline, not run on
+     */
+    private static void shortTimeLimitEndsSearch() {
+        final TimeManager timeManager = new TimeManager();
+        timeManager.startGame();
+        final long startNanos = System.nanoTime();
+        final int numIterations = runSearch(timeManager, 0.05, Integer.MAX_VALUE, 2.0);
+        final double seconds = (System.nanoTime() - startNanos) / 1.0e9;
+        check(seconds >= 0.05, "search stopped before its deadline after " + seconds + "s");
+        check(seconds < 0.5, "search overran its 0.05s deadline: " + seconds + "s, " + numIterations + " iterations");
+    }
+
+    /**
+     * The state of one search must not keep the next one from reading the clock
+     */
+    private static void timeLimitEndsEverySearch() {
+        final TimeManager timeManager = new TimeManager();
+        timeManager.startGame();
+        for (int search = 0; search < 3; search++) {
+            final long startNanos = System.nanoTime();
+            runSearch(timeManager, 0.02, Integer.MAX_VALUE, 2.0);
+            final double seconds = (System.nanoTime() - startNanos) / 1.0e9;
+            check(seconds < 0.5, "search " + search + " overran its 0.02s deadline: " + seconds + "s");
+        }
+    }
+
+    private static void iterationLimitEndsSearch() {
+        final TimeManager timeManager = new TimeManager();
+        timeManager.startGame();
+        final int numIterations = runSearch(timeManager, -1.0, 1000, 2.0);
+        check(numIterations == 1000, "search without time limit ran " + numIterations + " of 1000 iterations");
+    }
+
+    /**
+     * Every worker of a parallel search, counting its own iterations, must stop soon after
+     * the deadline, and the search must be timed as a whole
+     */
+    private static void timeLimitEndsParallelSearch() throws InterruptedException {
+        final TimeManager timeManager = new TimeManager();
+        timeManager.startGame();
+        final long startNanos = System.nanoTime();
+        final long safetyNanos = startNanos + 2000000000L;
+        timeManager.startSearch(0.05, Integer.MAX_VALUE);
+        final Thread[] workers = new Thread[4];
+        for (int w = 0; w < workers.length; w++) {
+            workers[w] = new Thread(() -> {
+                int numIterations = 0;
+                while (timeManager.continueParallelSearch(numIterations) && System.nanoTime() < safetyNanos) {
+                    numIterations++;
+                }
+            });
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        timeManager.endSearch();
+        final double seconds = (System.nanoTime() - startNanos) / 1.0e9;
+        check(seconds >= 0.05, "parallel search stopped before its deadline after " + seconds + "s");
+        check(seconds < 0.5, "parallel search overran its 0.05s deadline: " + seconds + "s");
+        check(timeManager.getLastElapsedSeconds() >= 0.05, "parallel search was timed at " +
+                timeManager.getLastElapsedSeconds() + "s");
+    }
+
+    /**
+     * @return Iterations run until the time manager stopped the search, or until the
+     * safety limit, so a failing check cannot hang
+     */
+    private static int runSearch(final TimeManager timeManager, final double maxSeconds, final int maxIterations,
+                                 final double safetySeconds) {
+        final long safetyNanos = System.nanoTime() + (long) (safetySeconds * 1.0e9);
+        timeManager.startSearch(maxSeconds, maxIterations);
+        int numIterations = 0;
+        while (timeManager.continueSearch(numIterations, null) && System.nanoTime() < safetyNanos) {
+            numIterations++;
+        }
+        timeManager.endSearch();
+        return numIterations;
+    }
+
+    private static void check(final boolean condition, final String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
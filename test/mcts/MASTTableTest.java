@@ -0,0 +1,186 @@
+package mcts;
+
+/**
+ * Checks of {@link MASTTable}, without a game: moves are stood in for by their keys.
+ * Run with assertions enabled or not, a failed check throws.
+ */
+public class MASTTableTest {
+
+    /** Capacity of a new table, and the multiplier of its hash, as in MASTTable */
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** Result of a win for player 1 in a two-player game */
+    private static final double[] WIN_1 = {0.0, 1.0, -1.0};
+
+    public static void main(final String[] args) {
+        probesWrapAround();
+        growsWhenHalfFull();
+        evictsRarelyVisitedEntriesFirst();
+        evictsLeastRecentlyUpdatedEntries();
+        decayScalesVisitsAndKeepsMeans();
+        countsLookupsAndHits();
+        System.out.println("MASTTableTest passed");
+    }
+
+    /**
+     * Keys whose home slot is the last one must continue probing at slot 0
+     */
+    private static void probesWrapAround() {
+        final MASTTable table = new MASTTable();
+        final long[] keys = keysWithHomeSlot(INITIAL_CAPACITY - 1, 3);
+        for (int i = 0; i < keys.length; i++) {
+            for (int n = 0; n <= i; n++) {
+                table.update(keys[i], WIN_1);
+            }
+        }
+        check(table.find(keys[0]) == INITIAL_CAPACITY - 1, "first key not in its home slot");
+        check(table.find(keys[1]) == 0, "second key did not wrap around to slot 0");
+        check(table.find(keys[2]) == 1, "third key not in slot 1");
+        for (int i = 0; i < keys.length; i++) {
+            check(table.visits(table.find(keys[i])) == i + 1, "key " + i + " lost visits after wrapping around");
+        }
+        check(table.size() == 3, "size " + table.size() + " instead of 3");
+    }
+
+    /**
+     * The table keeps its capacity up to half full, doubles beyond, and keeps every entry when it does
+     */
+    private static void growsWhenHalfFull() {
+        final MASTTable table = new MASTTable();
+        final int halfFull = INITIAL_CAPACITY / 2;
+        for (long key = 1; key <= halfFull; key++) {
+            table.update(key, WIN_1);
+        }
+        for (long key = 1; key <= halfFull; key++) {
+            check(table.find(key) < INITIAL_CAPACITY, "table grew before it was more than half full");
+        }
+
+        table.update(halfFull + 1, WIN_1);
+        boolean grown = false;
+        for (long key = 1; key <= halfFull + 1; key++) {
+            final int slot = table.find(key);
+            check(slot >= 0 && table.visits(slot) == 1, "key " + key + " lost when the table grew");
+            check(table.meanScore(slot, 1) == 1.0, "scores of key " + key + " changed when the table grew");
+            grown |= slot >= INITIAL_CAPACITY;
+        }
+        check(grown, "table did not grow beyond half full");
+        check(table.size() == halfFull + 1, "size " + table.size() + " instead of " + (halfFull + 1));
+    }
+
+    /**
+     * A full table evicts the entries with fewer than minVisits visits before the others,
+     * even if those were updated longer ago
+     */
+    private static void evictsRarelyVisitedEntriesFirst() {
+        final MASTTable table = new MASTTable();
+        table.setCapacity(8, 2);
+        // visited keys 1 to 4 get two visits each, keys 5 to 8 one, interleaved so that
+        // every visited key was updated before a rarely visited one
+        for (long key = 1; key <= 4; key++) {
+            table.update(key, WIN_1);
+            table.update(key, WIN_1);
+            table.update(key + 4, WIN_1);
+        }
+        check(table.size() == 8, "size " + table.size() + " instead of 8 before eviction");
+
+        // a quarter of the entries is evicted: the two oldest of the rarely visited ones
+        table.update(9L, WIN_1);
+        check(table.numEvictions() == 2, table.numEvictions() + " evictions instead of 2");
+        check(table.find(5L) < 0 && table.find(6L) < 0, "oldest rarely visited entries were kept");
+        for (long key : new long[]{1L, 2L, 3L, 4L, 7L, 8L, 9L}) {
+            check(table.find(key) >= 0, "key " + key + " evicted");
+        }
+        check(table.size() == 7, "size " + table.size() + " instead of 7 after eviction");
+    }
+
+    /**
+     * Among entries with enough visits, the ones updated longest ago are evicted first
+     */
+    private static void evictsLeastRecentlyUpdatedEntries() {
+        final MASTTable table = new MASTTable();
+        table.setCapacity(4, 1);
+        for (long key = 1; key <= 4; key++) {
+            table.update(key, WIN_1);
+        }
+        // key 1 becomes the most recently updated, key 2 the least
+        table.update(1L, WIN_1);
+
+        table.update(5L, WIN_1);
+        check(table.numEvictions() == 1, table.numEvictions() + " evictions instead of 1");
+        check(table.find(2L) < 0, "least recently updated entry was kept");
+        check(table.find(1L) >= 0 && table.visits(table.find(1L)) == 2, "recently updated entry was evicted");
+        check(table.find(5L) >= 0, "inserted entry missing after eviction");
+        check(table.capacity() == 4 && table.occupancy() == 1.0, "occupancy " + table.occupancy() + " of a full table");
+    }
+
+    /**
+     * decay() scales the visits down, rounding down, keeps the mean results and drops
+     * entries left without visits
+     */
+    private static void decayScalesVisitsAndKeepsMeans() {
+        final MASTTable table = new MASTTable();
+        final double[] loss1 = {0.0, -1.0, 1.0};
+        for (int i = 0; i < 3; i++) {
+            table.update(1L, WIN_1);
+        }
+        table.update(1L, loss1);
+        table.update(2L, WIN_1);
+
+        table.decay(1.0);
+        check(table.visits(table.find(1L)) == 4 && table.size() == 2, "decay by 1 changed the table");
+
+        table.decay(0.5);
+        final int slot = table.find(1L);
+        check(slot >= 0 && table.visits(slot) == 2, "4 visits decayed by 0.5 to " + table.visits(slot));
+        check(Math.abs(table.meanScore(slot, 1) - 0.5) < 1e-12, "mean for player 1 changed to " + table.meanScore(slot, 1));
+        check(Math.abs(table.meanScore(slot, 2) + 0.5) < 1e-12, "mean for player 2 changed to " + table.meanScore(slot, 2));
+        check(table.find(2L) < 0, "entry decayed to 0 visits was kept");
+        check(table.size() == 1, "size " + table.size() + " instead of 1 after decay");
+
+        table.decay(0.0);
+        check(table.size() == 0 && table.find(1L) < 0, "decay by 0 did not clear the table");
+    }
+
+    /**
+     * Only find() counts as a lookup, and clear() resets the counters
+     */
+    private static void countsLookupsAndHits() {
+        final MASTTable table = new MASTTable();
+        check(table.hitRate() == 0.0, "hit rate without lookups is not 0");
+        table.update(1L, WIN_1);
+        table.update(2L, WIN_1);
+        check(table.numLookups() == 0L, "updates counted as lookups");
+
+        table.find(1L);
+        table.find(2L);
+        table.find(3L);
+        table.find(4L);
+        check(table.numLookups() == 4L, table.numLookups() + " lookups instead of 4");
+        check(table.hitRate() == 0.5, "hit rate " + table.hitRate() + " instead of 0.5");
+
+        table.clear();
+        check(table.numLookups() == 0L && table.hitRate() == 0.0, "clear() kept the lookup counters");
+        check(table.size() == 0 && table.find(1L) < 0, "clear() kept entries");
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * @return Distinct keys whose home slot in a table of the initial capacity is the given slot
+     */
+    private static long[] keysWithHomeSlot(final int slot, final int numKeys) {
+        final long[] keys = new long[numKeys];
+        int n = 0;
+        for (long key = 1; n < numKeys; key++) {
+            if (((int) ((key * HASH_MULTIPLIER) >>> 32) & (INITIAL_CAPACITY - 1)) == slot)
+                keys[n++] = key;
+        }
+        return keys;
+    }
+
+    private static void check(final boolean condition, final String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,71 @@
+package mcts;
+
+/**
+ * Checks of {@link MoveKeySet}, without a game: moves are stood in for by their keys.
+ * Run with assertions enabled or not, a failed check throws.
+ */
+public class MoveKeySetTest {
+
+    public static void main(final String[] args) {
+        tellsMoversApart();
+        clearEmptiesTheSet();
+        growsAndKeepsItsPairs();
+        System.out.println("MoveKeySetTest passed");
+    }
+
+    /**
+     * The same move played by another player is another pair, and adding a pair twice counts once
+     */
+    private static void tellsMoversApart() {
+        final MoveKeySet set = new MoveKeySet();
+        set.add(42L, 1);
+        set.add(42L, 1);
+        check(set.size() == 1, "pair added twice counted " + set.size() + " times");
+        check(set.contains(42L, 1), "added pair missing");
+        check(!set.contains(42L, 2), "move of player 1 found for player 2");
+        check(!set.contains(43L, 1), "pair that was never added found");
+        set.add(42L, 2);
+        check(set.size() == 2 && set.contains(42L, 2), "same move of another player not added");
+    }
+
+    private static void clearEmptiesTheSet() {
+        final MoveKeySet set = new MoveKeySet();
+        for (long key = 0; key < 100; key++) {
+            set.add(key, 1);
+        }
+        set.clear();
+        check(set.size() == 0, "size " + set.size() + " after clear()");
+        for (long key = 0; key < 100; key++) {
+            check(!set.contains(key, 1), "key " + key + " kept by clear()");
+        }
+        set.add(7L, 1);
+        check(set.contains(7L, 1) && set.size() == 1, "pair added after clear() missing");
+    }
+
+    /**
+     * Growing beyond half full keeps the pairs added since the last clear(), and only those
+     */
+    private static void growsAndKeepsItsPairs() {
+        final MoveKeySet set = new MoveKeySet();
+        for (long key = 0; key < 100; key++) {
+            set.add(key, 1);
+        }
+        set.clear();
+        final int numPairs = 1000;
+        for (long key = 1000; key < 1000 + numPairs; key++) {
+            set.add(key, 2);
+        }
+        check(set.size() == numPairs, "size " + set.size() + " instead of " + numPairs + " after growing");
+        for (long key = 1000; key < 1000 + numPairs; key++) {
+            check(set.contains(key, 2), "key " + key + " lost when the set grew");
+        }
+        for (long key = 0; key < 100; key++) {
+            check(!set.contains(key, 1), "cleared key " + key + " came back when the set grew");
+        }
+    }
+
+    private static void check(final boolean condition, final String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
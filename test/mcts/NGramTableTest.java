@@ -0,0 +1,236 @@
+package mcts;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Checks of {@link NGramTable} against the trie of N-grams that MCTS_NSTv2 used before it,
+ * without a game: moves are stood in for by their keys. Run with assertions enabled or not,
+ * a failed check throws.
+ */
+public class NGramTableTest {
+
+    private static final int MAX_GRAMS = 3;
+    private static final int NUM_PLAYERS = 2;
+
+    public static void main(final String[] args) {
+        usesContextsUpToMaxGrams();
+        stopsAtFirstMissingContext();
+        stopsAtRarelyVisitedContext();
+        agreesWithTrieOnRandomPlayouts();
+        System.out.println("NGramTableTest passed");
+    }
+
+    /**
+     * With a long history, a move is scored on itself and its contexts of 1 to MAX_GRAMS moves, no longer ones
+     */
+    private static void usesContextsUpToMaxGrams() {
+        final NGramTable table = new NGramTable(MAX_GRAMS, 1);
+        final Trie trie = new Trie(MAX_GRAMS, 1);
+        // every prefix of 1 2 3 4 5 is followed by 5 with another result
+        final long[] playout = {1L, 2L, 3L, 4L, 5L};
+        final double[][] results = {{0.0, 1.0, -1.0}, {0.0, -1.0, 1.0}};
+        for (int r = 0; r < results.length; r++) {
+            table.update(playout, playout.length, results[r]);
+            trie.update(playout, playout.length, results[r]);
+        }
+        // one more visit of 5 alone, so the move and its contexts have different means
+        table.update(new long[]{5L}, 1, results[0]);
+        trie.update(new long[]{5L}, 1, results[0]);
+
+        final long[] history = {1L, 2L, 3L, 4L};
+        checkScores(table, trie, history, new long[]{5L}, "long history");
+        // the move itself and MAX_GRAMS contexts
+        check(trie.numScores(history, 5L) == MAX_GRAMS + 1, "reference did not use MAX_GRAMS contexts");
+    }
+
+    /**
+     * Scoring stops at the first context without statistics, even if a longer one had some
+     */
+    private static void stopsAtFirstMissingContext() {
+        final NGramTable table = new NGramTable(MAX_GRAMS, 1);
+        final Trie trie = new Trie(MAX_GRAMS, 1);
+        final double[] win1 = {0.0, 1.0, -1.0};
+        final double[] loss1 = {0.0, -1.0, 1.0};
+        table.update(new long[]{7L, 8L, 9L}, 3, win1);
+        trie.update(new long[]{7L, 8L, 9L}, 3, win1);
+        table.update(new long[]{9L}, 1, loss1);
+        trie.update(new long[]{9L}, 1, loss1);
+
+        // 6 9 was never played, so 7 6 9 does not count either
+        final long[] history = {7L, 6L};
+        checkScores(table, trie, history, new long[]{9L, 8L, 10L}, "missing context");
+        table.startSequence();
+        table.push(7L);
+        table.push(6L);
+        check(table.score(9L, 1) == 0.0, "score " + table.score(9L, 1) + " used contexts beyond a missing one");
+        check(table.score(10L, 1) == Double.MAX_VALUE, "move without statistics not scored Double.MAX_VALUE");
+    }
+
+    /**
+     * Scoring stops at the first context with fewer than minVisits visits
+     */
+    private static void stopsAtRarelyVisitedContext() {
+        final int minVisits = 2;
+        final NGramTable table = new NGramTable(MAX_GRAMS, minVisits);
+        final Trie trie = new Trie(MAX_GRAMS, minVisits);
+        final double[] win1 = {0.0, 1.0, -1.0};
+        final double[] loss1 = {0.0, -1.0, 1.0};
+        // 2 3 is played twice, 1 2 3 once, 3 alone once more
+        table.update(new long[]{1L, 2L, 3L}, 3, win1);
+        trie.update(new long[]{1L, 2L, 3L}, 3, win1);
+        table.update(new long[]{2L, 3L}, 2, win1);
+        trie.update(new long[]{2L, 3L}, 2, win1);
+        table.update(new long[]{3L}, 1, loss1);
+        trie.update(new long[]{3L}, 1, loss1);
+
+        final long[] history = {1L, 2L};
+        checkScores(table, trie, history, new long[]{3L}, "rarely visited context");
+        check(trie.numScores(history, 3L) == 2, "reference did not stop at the context with one visit");
+        // mean of 3 (1/3) and of 2 3 (1), but not of 1 2 3
+        table.startSequence();
+        table.push(1L);
+        table.push(2L);
+        check(Math.abs(table.score(3L, 1) - 2.0 / 3.0) < 1e-12, "score " + table.score(3L, 1) +
+                " instead of 2/3 with a rarely visited context");
+    }
+
+    /**
+     * On random playouts over few moves, where many contexts repeat, both must score every
+     * move alike after every history
+     */
+    private static void agreesWithTrieOnRandomPlayouts() {
+        final Random random = new Random(12345L);
+        for (int minVisits : new int[]{1, 3}) {
+            final NGramTable table = new NGramTable(MAX_GRAMS, minVisits);
+            final Trie trie = new Trie(MAX_GRAMS, minVisits);
+            final int numMoves = 6;
+            final long[] playout = new long[20];
+            final double[] results = new double[NUM_PLAYERS + 1];
+
+            for (int p = 0; p < 2000; p++) {
+                final int length = 1 + random.nextInt(playout.length);
+                for (int i = 0; i < length; i++) {
+                    playout[i] = 1000L + random.nextInt(numMoves);
+                }
+                results[1] = random.nextInt(3) - 1.0;
+                results[2] = -results[1];
+                table.update(playout, length, results);
+                trie.update(playout, length, results);
+
+                if (p % 50 == 0) {
+                    final long[] history = new long[random.nextInt(8)];
+                    for (int i = 0; i < history.length; i++) {
+                        history[i] = 1000L + random.nextInt(numMoves);
+                    }
+                    final long[] candidates = new long[numMoves + 1];
+                    for (int m = 0; m <= numMoves; m++) {
+                        candidates[m] = 1000L + m;
+                    }
+                    checkScores(table, trie, history, candidates, "random playouts, minVisits " + minVisits);
+                }
+            }
+        }
+    }
+
+    //-------------------------------------------------------------------------
+
+    private static void checkScores(final NGramTable table, final Trie trie, final long[] history,
+                                    final long[] candidates, final String description) {
+        table.startSequence();
+        for (long key : history) {
+            table.push(key);
+        }
+        for (long candidate : candidates) {
+            for (int mover = 1; mover <= NUM_PLAYERS; mover++) {
+                final double expected = trie.score(history, candidate, mover);
+                final double score = table.score(candidate, mover);
+                check(score == expected || Math.abs(score - expected) < 1e-12, description + ": move " + candidate +
+                        " of player " + mover + " scored " + score + " instead of " + expected);
+            }
+        }
+    }
+
+    private static void check(final boolean condition, final String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * The N-gram statistics of MCTS_NSTv2 before NGramTable: every gram holds the grams of
+     * the moves played before it, and is keyed by the key of its move
+     */
+    private static final class Trie {
+        private final int maxGrams;
+        private final int minVisits;
+        private final HashMap<Long, Gram> grams = new HashMap<Long, Gram>();
+
+        Trie(final int maxGrams, final int minVisits) {
+            this.maxGrams = maxGrams;
+            this.minVisits = minVisits;
+        }
+
+        void update(final long[] playout, final int length, final double[] results) {
+            for (int i = 0; i < length; i++) {
+                Gram gram = grams.computeIfAbsent(playout[i], key -> new Gram());
+                gram.add(results);
+                for (int j = 1; j <= maxGrams && j <= i; j++) {
+                    gram = gram.previousGrams.computeIfAbsent(playout[i - j], key -> new Gram());
+                    gram.add(results);
+                }
+            }
+        }
+
+        double score(final long[] history, final long move, final int mover) {
+            Gram gram = grams.get(move);
+            if (gram == null)
+                return Double.MAX_VALUE;
+            double scoreSum = gram.mean(mover);
+            int numScores = 1;
+            for (int j = 1; j <= maxGrams && j <= history.length; j++) {
+                gram = gram.previousGrams.get(history[history.length - j]);
+                if (gram == null || gram.visitCount < minVisits)
+                    break;
+                scoreSum += gram.mean(mover);
+                numScores++;
+            }
+            return scoreSum / numScores;
+        }
+
+        /**
+         * @return Number of means the score of a move after the history averages
+         */
+        int numScores(final long[] history, final long move) {
+            Gram gram = grams.get(move);
+            if (gram == null)
+                return 0;
+            int numScores = 1;
+            for (int j = 1; j <= maxGrams && j <= history.length; j++) {
+                gram = gram.previousGrams.get(history[history.length - j]);
+                if (gram == null || gram.visitCount < minVisits)
+                    break;
+                numScores++;
+            }
+            return numScores;
+        }
+    }
+
+    private static final class Gram {
+        private final HashMap<Long, Gram> previousGrams = new HashMap<Long, Gram>();
+        private int visitCount = 0;
+        private final double[] scoreSums = new double[NUM_PLAYERS + 1];
+
+        void add(final double[] results) {
+            visitCount++;
+            for (int i = 0; i < scoreSums.length; i++) {
+                scoreSums[i] += results[i];
+            }
+        }
+
+        double mean(final int mover) {
+            return scoreSums[mover] / visitCount;
+        }
+    }
+}